@@ -1,10 +1,13 @@
 module uk.ac.soton.comp1206 {
+    requires java.management;
     requires java.scripting;
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.media;
     requires org.apache.logging.log4j;
     requires nv.websocket.client;
+    requires static jdk.incubator.vector;
+    requires static jdk.management;
     opens uk.ac.soton.comp1206.ui to javafx.fxml;
     exports uk.ac.soton.comp1206;
     exports uk.ac.soton.comp1206.ui;
@@ -13,4 +16,5 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.ai;
 }
\ No newline at end of file
@@ -0,0 +1,345 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * The BoardEvaluator scores the state of a board after a move as a weighted sum of features. Higher is better.
+ *
+ * The features are:
+ * lines - lines cleared by the move,
+ * holes - empty cells closed in on all four sides, which no piece bigger than a dot can fill,
+ * nearFull - rows and columns missing only one or two blocks,
+ * filled - blocks on the board,
+ * multiplier - the multiplier after the move, to value keeping a clearing streak going,
+ * transitions - changes between filled and empty along every row and column, a measure of how ragged the board is.
+ *
+ * Weights are saved as a single line of numbers, one per feature, and the evaluator keeps scratch arrays, so each
+ * thread should use its own. The default weights, used by the hint and the bots, are the tuned weights read from the
+ * file given with -Dtetrecs.weights, or else from heuristic-weights.txt on the classpath, falling back to hand-picked
+ * weights when there are neither.
+ */
+public class BoardEvaluator implements Evaluator {
+
+    /**
+     * Index of the lines cleared feature
+     */
+    public static final int LINES = 0;
+
+    /**
+     * Index of the holes feature
+     */
+    public static final int HOLES = 1;
+
+    /**
+     * Index of the near-full lines feature
+     */
+    public static final int NEAR_FULL = 2;
+
+    /**
+     * Index of the filled blocks feature
+     */
+    public static final int FILLED = 3;
+
+    /**
+     * Index of the multiplier feature
+     */
+    public static final int MULTIPLIER = 4;
+
+    /**
+     * Index of the transitions feature
+     */
+    public static final int TRANSITIONS = 5;
+
+    /**
+     * Number of features
+     */
+    public static final int FEATURES = 6;
+
+    /**
+     * Names of the features, by index
+     */
+    public static final String[] NAMES = {"lines", "holes", "nearFull", "filled", "multiplier", "transitions"};
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(BoardEvaluator.class);
+
+    /**
+     * Name of the tuned weights on the classpath
+     */
+    private static final String WEIGHTS_RESOURCE = "heuristic-weights.txt";
+
+    /**
+     * Hand-picked weights, used when no tuned weights are found
+     */
+    private static final double[] HAND_PICKED_WEIGHTS = {10, -4, 1.5, -0.5, 2, -0.3};
+
+    /**
+     * Weights used by default, tuned if they can be found
+     */
+    private static final double[] DEFAULT_WEIGHTS = loadDefault();
+
+    /**
+     * The weight of each feature
+     */
+    private final double[] weights;
+
+    /**
+     * Scratch values of the features
+     */
+    private final double[] features = new double[FEATURES];
+
+    /**
+     * Scratch count of filled blocks per column
+     */
+    private int[] columnBlocks = new int[0];
+
+    /**
+     * Create an evaluator with the given weights
+     * @param weights weight of each feature
+     */
+    public BoardEvaluator(double[] weights) {
+        if (weights.length != FEATURES) {
+            throw new IllegalArgumentException("Expected " + FEATURES + " weights but got " + weights.length);
+        }
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Create an evaluator with the default weights
+     */
+    public BoardEvaluator() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Get the default weights, tuned if they were found
+     * @return copy of the default weights
+     */
+    public static double[] defaultWeights() {
+        return DEFAULT_WEIGHTS.clone();
+    }
+
+    /**
+     * Get the weights of this evaluator
+     * @return copy of the weights
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Score a board after a move
+     * @param after the simulation after the move
+     * @param lines number of lines the move cleared
+     * @return score, higher is better
+     */
+    @Override
+    public double evaluate(Simulation after, int lines) {
+        extract(after, lines, features);
+        double value = 0;
+        for (int i = 0; i < FEATURES; i++) {
+            value += weights[i] * features[i];
+        }
+        return value;
+    }
+
+    /**
+     * Get the name of this evaluator
+     * @return name
+     */
+    @Override
+    public String getName() {
+        return "heuristic";
+    }
+
+    /**
+     * Work out the features of a board after a move
+     * @param after the simulation after the move
+     * @param lines number of lines the move cleared
+     * @param out array of at least FEATURES values to write the features into
+     */
+    public void extract(Simulation after, int lines, double[] out) {
+        int cols = after.getCols();
+        int rows = after.getRows();
+        int[] cells = after.getCells();
+        if (columnBlocks.length != cols) {
+            columnBlocks = new int[cols];
+        }
+        Arrays.fill(columnBlocks, 0);
+
+        int holes = 0;
+        int nearFull = 0;
+        int filled = 0;
+        int transitions = 0;
+        for (int y = 0; y < rows; y++) {
+            int offset = y * cols;
+            int rowBlocks = 0;
+            for (int x = 0; x < cols; x++) {
+                boolean full = cells[offset + x] != 0;
+                if (full) {
+                    rowBlocks++;
+                    columnBlocks[x]++;
+                }
+                else if (blocked(cells, cols, rows, x - 1, y) && blocked(cells, cols, rows, x + 1, y)
+                    && blocked(cells, cols, rows, x, y - 1) && blocked(cells, cols, rows, x, y + 1)) {
+                    holes++;
+                }
+                if (x > 0 && full != (cells[offset + x - 1] != 0)) {
+                    transitions++;
+                }
+                if (y > 0 && full != (cells[offset - cols + x] != 0)) {
+                    transitions++;
+                }
+            }
+            filled += rowBlocks;
+            if (rowBlocks < cols && rowBlocks >= cols - 2) {
+                nearFull++;
+            }
+        }
+        for (int x = 0; x < cols; x++) {
+            if (columnBlocks[x] < rows && columnBlocks[x] >= rows - 2) {
+                nearFull++;
+            }
+        }
+
+        out[LINES] = lines;
+        out[HOLES] = holes;
+        out[NEAR_FULL] = nearFull;
+        out[FILLED] = filled;
+        out[MULTIPLIER] = after.getMultiplier();
+        out[TRANSITIONS] = transitions;
+    }
+
+    /**
+     * Check whether a cell is filled or outside the board
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param x column
+     * @param y row
+     * @return whether the cell is blocked
+     */
+    private static boolean blocked(int[] cells, int cols, int rows, int x, int y) {
+        return x < 0 || x >= cols || y < 0 || y >= rows || cells[y * cols + x] != 0;
+    }
+
+    /**
+     * Write weights to a file, with a comment line naming the features
+     * @param path file to write
+     * @param weights weights to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Path path, double[] weights) throws IOException {
+        Files.writeString(path, "# " + String.join(" ", NAMES) + "\n" + format(weights) + "\n",
+            StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read weights from a file written by save
+     * @param path file to read
+     * @return weights
+     * @throws IOException if the file cannot be read or holds no weights
+     */
+    public static double[] load(Path path) throws IOException {
+        return weightsIn(Files.readAllLines(path, StandardCharsets.UTF_8), path.toString());
+    }
+
+    /**
+     * Read the tuned weights from the file given with -Dtetrecs.weights or else heuristic-weights.txt on the
+     * classpath, or use the hand-picked weights if there are neither or they cannot be read
+     * @return default weights
+     */
+    private static double[] loadDefault() {
+        try {
+            String file = System.getProperty("tetrecs.weights");
+            if (file != null) {
+                logger.info("Loading heuristic weights from {}", file);
+                return checked(load(Path.of(file)), file);
+            }
+            try (InputStream in = BoardEvaluator.class.getResourceAsStream("/" + WEIGHTS_RESOURCE)) {
+                if (in != null) {
+                    logger.info("Loading tuned heuristic weights");
+                    var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    return checked(weightsIn(reader.lines().toList(), WEIGHTS_RESOURCE), WEIGHTS_RESOURCE);
+                }
+            }
+        }
+        catch (IOException | IllegalArgumentException e) {
+            logger.warn("Cannot load heuristic weights, using the hand-picked ones: {}", e.getMessage());
+        }
+        return HAND_PICKED_WEIGHTS.clone();
+    }
+
+    /**
+     * Get the weights from the lines of a file written by save
+     * @param lines lines of the file
+     * @param source name of the file, for the error
+     * @return weights
+     * @throws IOException if the lines hold no weights
+     */
+    private static double[] weightsIn(List<String> lines, String source) throws IOException {
+        for (String line : lines) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                return parse(line);
+            }
+        }
+        throw new IOException("No weights in " + source);
+    }
+
+    /**
+     * Check that weights have one value per feature
+     * @param weights weights to check
+     * @param source where the weights came from, for the error
+     * @return the weights
+     * @throws IllegalArgumentException if the number of weights is wrong
+     */
+    private static double[] checked(double[] weights, String source) {
+        if (weights.length != FEATURES) {
+            throw new IllegalArgumentException("Expected " + FEATURES + " weights in " + source + " but got "
+                + weights.length);
+        }
+        return weights;
+    }
+
+    /**
+     * Format weights as a line of numbers
+     * @param weights weights to format
+     * @return line of numbers
+     */
+    public static String format(double[] weights) {
+        List<String> values = new ArrayList<>(weights.length);
+        for (double weight : weights) {
+            values.add(Double.toString(weight));
+        }
+        return String.join(" ", values);
+    }
+
+    /**
+     * Parse a line of numbers into weights
+     * @param line line of numbers
+     * @return weights
+     */
+    public static double[] parse(String line) {
+        String[] values = line.trim().split("\\s+");
+        double[] weights = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            weights[i] = Double.parseDouble(values[i]);
+        }
+        return weights;
+    }
+
+}
@@ -0,0 +1,31 @@
+package uk.ac.soton.comp1206.ai;
+
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * Episode plays a simulated game with a policy until the game is over or a move limit is reached. Whenever the policy
+ * finds no move, the timer is taken to run out and a life is lost.
+ */
+public final class Episode {
+
+    /**
+     * Not to be created
+     */
+    private Episode() {
+    }
+
+    /**
+     * Play a simulated game to the end
+     * @param simulation simulation to play, changed in place
+     * @param policy policy choosing the moves
+     * @param maxMoves most pieces to play
+     * @return final score
+     */
+    public static int play(Simulation simulation, Policy policy, int maxMoves) {
+        while (!simulation.isOver() && simulation.getMoves() < maxMoves) {
+            Moves.apply(simulation, policy.chooseMove(simulation));
+        }
+        return simulation.getScore();
+    }
+
+}
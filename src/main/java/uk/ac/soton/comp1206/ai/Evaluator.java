@@ -0,0 +1,25 @@
+package uk.ac.soton.comp1206.ai;
+
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * An Evaluator scores the state of a board after a candidate move, so a policy can pick the best one. Evaluators may
+ * keep scratch state between calls, so each thread should use its own instance.
+ */
+public interface Evaluator {
+
+    /**
+     * Score a board after a move
+     * @param after the simulation after the move
+     * @param lines number of lines the move cleared
+     * @return score, higher is better
+     */
+    public double evaluate(Simulation after, int lines);
+
+    /**
+     * Get the name of this evaluator, used to name the policies built on it
+     * @return name
+     */
+    public String getName();
+
+}
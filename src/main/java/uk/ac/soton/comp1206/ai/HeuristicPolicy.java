@@ -0,0 +1,94 @@
+package uk.ac.soton.comp1206.ai;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * The HeuristicPolicy tries every rotation and position of the current piece (and, if allowed, of the following piece
+ * after a swap) and picks the one whose resulting board an Evaluator, by default the BoardEvaluator, scores highest.
+ * Keeps a scratch simulation, so each thread should use its own.
+ */
+public class HeuristicPolicy implements Policy {
+
+    /**
+     * Scores the board after each candidate move
+     */
+    private final Evaluator evaluator;
+
+    /**
+     * Whether to also consider swapping the pieces first
+     */
+    private final boolean considerSwap;
+
+    /**
+     * Scratch simulation to try moves in
+     */
+    private Simulation scratch;
+
+    /**
+     * Create a policy with the given weights, which also considers swapping
+     * @param weights weight of each feature of the BoardEvaluator
+     */
+    public HeuristicPolicy(double[] weights) {
+        this(new BoardEvaluator(weights), true);
+    }
+
+    /**
+     * Create a policy with the given evaluator
+     * @param evaluator evaluator to score boards with
+     * @param considerSwap whether to also consider swapping the pieces first
+     */
+    public HeuristicPolicy(Evaluator evaluator, boolean considerSwap) {
+        this.evaluator = evaluator;
+        this.considerSwap = considerSwap;
+    }
+
+    /**
+     * Choose the move leading to the best scored board
+     * @param simulation the state of the game, which must not be changed
+     * @return packed move, or Moves.NONE if the piece cannot be placed anywhere
+     */
+    @Override
+    public int chooseMove(Simulation simulation) {
+        if (scratch == null || scratch.getCols() != simulation.getCols() || scratch.getRows() != simulation.getRows()) {
+            scratch = new Simulation(simulation.getCols(), simulation.getRows(), 0);
+        }
+
+        int best = Moves.NONE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int swap = 0; swap <= (considerSwap ? 1 : 0); swap++) {
+            GamePiece piece = swap == 0 ? simulation.getCurrentPiece() : simulation.getFollowingPiece();
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                for (int y = 0; y < simulation.getRows(); y++) {
+                    for (int x = 0; x < simulation.getCols(); x++) {
+                        if (!simulation.canPlay(piece, rotation, x, y)) {
+                            continue;
+                        }
+                        // Play the move on a copy and score the result
+                        scratch.copyFrom(simulation);
+                        if (swap == 1) {
+                            scratch.swap();
+                        }
+                        int lines = scratch.play(rotation, x, y);
+                        double value = evaluator.evaluate(scratch, lines);
+                        if (value > bestValue) {
+                            bestValue = value;
+                            best = Moves.encode(swap == 1, rotation, x, y);
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the name of this policy
+     * @return name
+     */
+    @Override
+    public String getName() {
+        return considerSwap ? evaluator.getName() : evaluator.getName() + "-noswap";
+    }
+
+}
@@ -0,0 +1,109 @@
+package uk.ac.soton.comp1206.ai;
+
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * Moves packs a decision into a single int, so policies can return one without allocating: whether to swap the pieces
+ * first, then the rotation and position to play the current piece at.
+ */
+public final class Moves {
+
+    /**
+     * No move could be found; the timer will run out
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The bit set when the pieces are swapped before playing
+     */
+    private static final int SWAP = 1 << 30;
+
+    /**
+     * The mask of the x and y coordinates
+     */
+    private static final int COORDINATE = 0x3FFF;
+
+    /**
+     * Not to be created
+     */
+    private Moves() {
+    }
+
+    /**
+     * Pack a move
+     * @param swap whether to swap the pieces first
+     * @param rotation rotation of the piece
+     * @param x column, below 16384
+     * @param y row, below 16384
+     * @return packed move
+     */
+    public static int encode(boolean swap, int rotation, int x, int y) {
+        return (swap ? SWAP : 0) | rotation << 28 | y << 14 | x;
+    }
+
+    /**
+     * Check whether a move swaps the pieces first
+     * @param move packed move
+     * @return whether to swap
+     */
+    public static boolean isSwap(int move) {
+        return (move & SWAP) != 0;
+    }
+
+    /**
+     * Get the rotation of a move
+     * @param move packed move
+     * @return rotation
+     */
+    public static int rotation(int move) {
+        return (move >>> 28) & 3;
+    }
+
+    /**
+     * Get the column of a move
+     * @param move packed move
+     * @return column
+     */
+    public static int x(int move) {
+        return move & COORDINATE;
+    }
+
+    /**
+     * Get the row of a move
+     * @param move packed move
+     * @return row
+     */
+    public static int y(int move) {
+        return (move >>> 14) & COORDINATE;
+    }
+
+    /**
+     * Play a move in a simulation, or let the timer run out if there is none
+     * @param simulation simulation to play in
+     * @param move packed move, or NONE
+     * @return number of lines cleared, or -1 if no piece was placed
+     */
+    public static int apply(Simulation simulation, int move) {
+        if (move == NONE) {
+            simulation.timeout();
+            return -1;
+        }
+        if (isSwap(move)) {
+            simulation.swap();
+        }
+        return simulation.play(rotation(move), x(move), y(move));
+    }
+
+    /**
+     * Describe a move
+     * @param move packed move
+     * @return description
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "none";
+        }
+        return (isSwap(move) ? "swap, " : "") + "rotation " + rotation(move) + " at " + x(move) + "," + y(move);
+    }
+
+}
@@ -0,0 +1,64 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Policies is the registry of placement policies that tools such as the tournament can play. Each policy is
+ * registered under its name with a factory taking a seed, since policies keep scratch state and every thread needs its
+ * own instance. The built-in policies are registered from the start.
+ */
+public final class Policies {
+
+    /**
+     * Factories of the registered policies, by name, in the order they were registered
+     */
+    private static final Map<String, LongFunction<Policy>> FACTORIES = new LinkedHashMap<>();
+
+    static {
+        register("random", RandomPolicy::new);
+        register("heuristic", seed -> new HeuristicPolicy(BoardEvaluator.defaultWeights()));
+        register("heuristic-noswap", seed -> new HeuristicPolicy(new BoardEvaluator(), false));
+    }
+
+    /**
+     * Not to be created
+     */
+    private Policies() {
+    }
+
+    /**
+     * Register a policy, replacing any policy of the same name
+     * @param name name of the policy
+     * @param factory creates an instance of the policy from a seed
+     */
+    public static synchronized void register(String name, LongFunction<Policy> factory) {
+        FACTORIES.put(name, factory);
+    }
+
+    /**
+     * Get the names of the registered policies
+     * @return names, in the order they were registered
+     */
+    public static synchronized List<String> names() {
+        return new ArrayList<>(FACTORIES.keySet());
+    }
+
+    /**
+     * Create an instance of a registered policy
+     * @param name name of the policy
+     * @param seed seed for policies that make random choices
+     * @return new instance
+     */
+    public static synchronized Policy create(String name, long seed) {
+        LongFunction<Policy> factory = FACTORIES.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("No policy named " + name + ", expected one of " + FACTORIES.keySet());
+        }
+        return factory.apply(seed);
+    }
+
+}
@@ -0,0 +1,24 @@
+package uk.ac.soton.comp1206.ai;
+
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * A Policy decides where to place the current piece of a game. Policies may keep scratch state between calls, so each
+ * thread should use its own instance.
+ */
+public interface Policy {
+
+    /**
+     * Choose the next move
+     * @param simulation the state of the game, which must not be changed
+     * @return packed move (see Moves), or Moves.NONE if the piece cannot be placed anywhere
+     */
+    public int chooseMove(Simulation simulation);
+
+    /**
+     * Get the name of this policy
+     * @return name
+     */
+    public String getName();
+
+}
@@ -0,0 +1,58 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * The RandomPolicy plays the current piece at a uniformly random legal rotation and position, never swapping. Cheap
+ * enough for Monte Carlo rollouts.
+ */
+public class RandomPolicy implements Policy {
+
+    /**
+     * The random source of this policy
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Create a random policy
+     * @param seed seed of the random source
+     */
+    public RandomPolicy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Choose a random legal move
+     * @param simulation the state of the game, which must not be changed
+     * @return packed move, or Moves.NONE if the piece cannot be placed anywhere
+     */
+    @Override
+    public int chooseMove(Simulation simulation) {
+        // Try every rotation and position, starting from a random one
+        int cells = simulation.getCols() * simulation.getRows();
+        int options = cells * GamePiece.ROTATIONS;
+        int start = random.nextInt(options);
+        for (int i = 0; i < options; i++) {
+            int option = start + i < options ? start + i : start + i - options;
+            int rotation = option / cells;
+            int x = option % cells % simulation.getCols();
+            int y = option % cells / simulation.getCols();
+            if (simulation.canPlay(rotation, x, y)) {
+                return Moves.encode(false, rotation, x, y);
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Get the name of this policy
+     * @return name
+     */
+    @Override
+    public String getName() {
+        return "random";
+    }
+
+}
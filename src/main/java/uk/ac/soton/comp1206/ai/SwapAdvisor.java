@@ -0,0 +1,469 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * The SwapAdvisor estimates whether swapping the current piece with the following one pays off, by playing thousands
+ * of random continuations of the game both ways until a time budget runs out.
+ *
+ * Every continuation is played from the same seed for "keep" and for "swap", so both see the same pieces and the
+ * comparison is paired. For each choice the advice gives the expected score gained over the horizon and the rate at
+ * which it beat the other choice, each with a 95% confidence interval.
+ *
+ * The rollouts run on all threads of the advisor's executor. The result can drive a bot or a hint in the user
+ * interface.
+ */
+public class SwapAdvisor {
+
+    /**
+     * The z value of a 95% confidence interval
+     */
+    private static final double Z = 1.96;
+
+    /**
+     * The executor running the rollouts
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Number of rollout workers to run at once
+     */
+    private final int workers;
+
+    /**
+     * Number of pieces played in each continuation
+     */
+    private final int horizon;
+
+    /**
+     * Creates the policy playing out continuations, from a seed
+     */
+    private final LongFunction<Policy> rolloutPolicy;
+
+    /**
+     * Create an advisor with its own pool of daemon threads, one per core, playing random continuations
+     * @param horizon number of pieces played in each continuation
+     */
+    public SwapAdvisor(int horizon) {
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            var thread = new Thread(runnable, "swap-advisor");
+            thread.setDaemon(true);
+            return thread;
+        }), Runtime.getRuntime().availableProcessors(), horizon, RandomPolicy::new);
+    }
+
+    /**
+     * Create an advisor
+     * @param executor executor to run the rollouts on
+     * @param workers number of rollout workers to run at once
+     * @param horizon number of pieces played in each continuation
+     * @param rolloutPolicy creates the policy playing out continuations, from a seed
+     */
+    public SwapAdvisor(ExecutorService executor, int workers, int horizon, LongFunction<Policy> rolloutPolicy) {
+        this.executor = executor;
+        this.workers = workers;
+        this.horizon = horizon;
+        this.rolloutPolicy = rolloutPolicy;
+    }
+
+    /**
+     * Estimate keeping and swapping the current piece, waiting for the result
+     * @param state state of the game, which must not change while advising (use a Simulation of a Game)
+     * @param budgetMillis time to spend, in milliseconds
+     * @return advice
+     * @throws InterruptedException if interrupted while waiting for the rollouts
+     */
+    public Advice advise(Simulation state, long budgetMillis) throws InterruptedException {
+        try {
+            return adviseAsync(state, budgetMillis).get();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Rollout failed", e.getCause());
+        }
+    }
+
+    /**
+     * Estimate keeping and swapping the current piece without blocking the calling thread
+     * @param state state of the game, which must not change while advising (use a Simulation of a Game)
+     * @param budgetMillis time to spend, in milliseconds
+     * @return advice, completed on a thread of the advisor once the budget runs out
+     */
+    public CompletableFuture<Advice> adviseAsync(Simulation state, long budgetMillis) {
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        long baseSeed = ThreadLocalRandom.current().nextLong();
+        var counter = new AtomicInteger();
+
+        // Start the workers, each playing continuations until the deadline
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Tally>[] futures = new CompletableFuture[workers];
+        for (int i = 0; i < workers; i++) {
+            long workerSeed = baseSeed + i;
+            futures[i] = CompletableFuture.supplyAsync(
+                () -> rollouts(state, deadline, counter, baseSeed, workerSeed), executor);
+        }
+
+        // Combine their tallies
+        return CompletableFuture.allOf(futures).thenApply(done -> {
+            var total = new Tally();
+            for (CompletableFuture<Tally> future : futures) {
+                total.add(future.join());
+            }
+            return total.toAdvice();
+        });
+    }
+
+    /**
+     * Stop the threads of this advisor
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Play pairs of continuations until the deadline
+     * @param state state of the game
+     * @param deadline System.nanoTime to stop at
+     * @param counter counter of continuations started by all workers
+     * @param baseSeed seed shared by all workers, so continuation i gets the same pieces whoever plays it
+     * @param workerSeed seed of this worker's policy
+     * @return tally of the continuations played
+     */
+    private Tally rollouts(Simulation state, long deadline, AtomicInteger counter, long baseSeed, long workerSeed) {
+        var keep = new Simulation(state.getCols(), state.getRows(), 0);
+        var swap = new Simulation(state.getCols(), state.getRows(), 0);
+        var policy = rolloutPolicy.apply(workerSeed);
+        var tally = new Tally();
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            long seed = baseSeed + counter.getAndIncrement() * 0x9E3779B97F4A7C15L;
+
+            keep.copyFrom(state);
+            keep.reseed(seed);
+            int keepGain = playOut(keep, policy) - state.getScore();
+
+            swap.copyFrom(state);
+            swap.swap();
+            swap.reseed(seed);
+            int swapGain = playOut(swap, policy) - state.getScore();
+
+            tally.add(keepGain, swapGain);
+        }
+        return tally;
+    }
+
+    /**
+     * Play a continuation for the horizon or until the game is over
+     * @param simulation simulation to play, changed in place
+     * @param policy policy choosing the moves
+     * @return final score
+     */
+    private int playOut(Simulation simulation, Policy policy) {
+        int end = simulation.getMoves() + horizon;
+        while (!simulation.isOver() && simulation.getMoves() < end) {
+            Moves.apply(simulation, policy.chooseMove(simulation));
+        }
+        return simulation.getScore();
+    }
+
+    /**
+     * Running totals of paired continuations
+     */
+    private static class Tally {
+
+        /**
+         * Number of pairs played
+         */
+        private long count;
+
+        /**
+         * Sum of the score gained when keeping
+         */
+        private double keepSum;
+
+        /**
+         * Sum of the squared score gained when keeping
+         */
+        private double keepSquares;
+
+        /**
+         * Sum of the score gained when swapping
+         */
+        private double swapSum;
+
+        /**
+         * Sum of the squared score gained when swapping
+         */
+        private double swapSquares;
+
+        /**
+         * Pairs where keeping did better, counting ties as half
+         */
+        private double keepWins;
+
+        /**
+         * Add a pair of continuations
+         * @param keepGain score gained when keeping
+         * @param swapGain score gained when swapping
+         */
+        private void add(int keepGain, int swapGain) {
+            count++;
+            keepSum += keepGain;
+            keepSquares += (double) keepGain * keepGain;
+            swapSum += swapGain;
+            swapSquares += (double) swapGain * swapGain;
+            keepWins += keepGain > swapGain ? 1 : keepGain == swapGain ? 0.5 : 0;
+        }
+
+        /**
+         * Add the totals of another tally
+         * @param other tally to add
+         */
+        private void add(Tally other) {
+            count += other.count;
+            keepSum += other.keepSum;
+            keepSquares += other.keepSquares;
+            swapSum += other.swapSum;
+            swapSquares += other.swapSquares;
+            keepWins += other.keepWins;
+        }
+
+        /**
+         * Turn the totals into advice
+         * @return advice
+         */
+        private Advice toAdvice() {
+            return new Advice(count, estimate(keepSum, keepSquares, keepWins),
+                estimate(swapSum, swapSquares, count - keepWins));
+        }
+
+        /**
+         * Work out the estimate of one choice
+         * @param sum sum of the score gained
+         * @param squares sum of the squared score gained
+         * @param wins pairs won
+         * @return estimate
+         */
+        private Estimate estimate(double sum, double squares, double wins) {
+            if (count == 0) {
+                return new Estimate(0, 0, 0, 0.5, 0, 1);
+            }
+            double mean = sum / count;
+            double variance = count > 1 ? Math.max(0, (squares - sum * mean) / (count - 1)) : 0;
+            double scoreHalf = Z * Math.sqrt(variance / count);
+
+            // Wilson score interval for the win rate
+            double rate = wins / count;
+            double z2 = Z * Z / count;
+            double centre = (rate + z2 / 2) / (1 + z2);
+            double rateHalf = Z * Math.sqrt(rate * (1 - rate) / count + z2 / (4 * count)) / (1 + z2);
+            return new Estimate(mean, mean - scoreHalf, mean + scoreHalf, rate, centre - rateHalf,
+                centre + rateHalf);
+        }
+
+    }
+
+    /**
+     * The estimated outcome of one choice
+     */
+    public static class Estimate {
+
+        /**
+         * Expected score gained over the horizon
+         */
+        private final double score;
+
+        /**
+         * Lower bound of the 95% interval of the score
+         */
+        private final double scoreLow;
+
+        /**
+         * Upper bound of the 95% interval of the score
+         */
+        private final double scoreHigh;
+
+        /**
+         * Rate at which this choice beat the other one
+         */
+        private final double winRate;
+
+        /**
+         * Lower bound of the 95% interval of the win rate
+         */
+        private final double winRateLow;
+
+        /**
+         * Upper bound of the 95% interval of the win rate
+         */
+        private final double winRateHigh;
+
+        /**
+         * Create an estimate
+         * @param score expected score gained
+         * @param scoreLow lower bound of the score
+         * @param scoreHigh upper bound of the score
+         * @param winRate win rate
+         * @param winRateLow lower bound of the win rate
+         * @param winRateHigh upper bound of the win rate
+         */
+        private Estimate(double score, double scoreLow, double scoreHigh, double winRate, double winRateLow,
+            double winRateHigh) {
+            this.score = score;
+            this.scoreLow = scoreLow;
+            this.scoreHigh = scoreHigh;
+            this.winRate = winRate;
+            this.winRateLow = winRateLow;
+            this.winRateHigh = winRateHigh;
+        }
+
+        /**
+         * Get the expected score gained over the horizon
+         * @return score
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Get the lower bound of the 95% interval of the score
+         * @return lower bound
+         */
+        public double getScoreLow() {
+            return scoreLow;
+        }
+
+        /**
+         * Get the upper bound of the 95% interval of the score
+         * @return upper bound
+         */
+        public double getScoreHigh() {
+            return scoreHigh;
+        }
+
+        /**
+         * Get the rate at which this choice beat the other one, counting ties as half
+         * @return win rate
+         */
+        public double getWinRate() {
+            return winRate;
+        }
+
+        /**
+         * Get the lower bound of the 95% interval of the win rate
+         * @return lower bound
+         */
+        public double getWinRateLow() {
+            return winRateLow;
+        }
+
+        /**
+         * Get the upper bound of the 95% interval of the win rate
+         * @return upper bound
+         */
+        public double getWinRateHigh() {
+            return winRateHigh;
+        }
+
+        /**
+         * Describe this estimate
+         * @return description
+         */
+        @Override
+        public String toString() {
+            return String.format("score %.0f [%.0f, %.0f], wins %.0f%% [%.0f%%, %.0f%%]", score, scoreLow, scoreHigh,
+                winRate * 100, winRateLow * 100, winRateHigh * 100);
+        }
+
+    }
+
+    /**
+     * The advice on whether to swap
+     */
+    public static class Advice {
+
+        /**
+         * Number of paired continuations played
+         */
+        private final long rollouts;
+
+        /**
+         * The estimate of keeping the current piece
+         */
+        private final Estimate keep;
+
+        /**
+         * The estimate of swapping the pieces
+         */
+        private final Estimate swap;
+
+        /**
+         * Create advice
+         * @param rollouts number of paired continuations played
+         * @param keep estimate of keeping
+         * @param swap estimate of swapping
+         */
+        private Advice(long rollouts, Estimate keep, Estimate swap) {
+            this.rollouts = rollouts;
+            this.keep = keep;
+            this.swap = swap;
+        }
+
+        /**
+         * Get the number of paired continuations played
+         * @return rollouts
+         */
+        public long getRollouts() {
+            return rollouts;
+        }
+
+        /**
+         * Get the estimate of keeping the current piece
+         * @return estimate
+         */
+        public Estimate getKeep() {
+            return keep;
+        }
+
+        /**
+         * Get the estimate of swapping the pieces
+         * @return estimate
+         */
+        public Estimate getSwap() {
+            return swap;
+        }
+
+        /**
+         * Check whether swapping is expected to score more
+         * @return whether to swap
+         */
+        public boolean shouldSwap() {
+            return swap.getScore() > keep.getScore();
+        }
+
+        /**
+         * Check whether the difference between the choices is unlikely to be chance, because the win rate interval
+         * of one of them lies entirely above a half
+         * @return whether the advice is confident
+         */
+        public boolean isConfident() {
+            return keep.getWinRateLow() > 0.5 || swap.getWinRateLow() > 0.5;
+        }
+
+        /**
+         * Describe this advice
+         * @return description
+         */
+        @Override
+        public String toString() {
+            return rollouts + " rollouts, keep: " + keep + ", swap: " + swap;
+        }
+
+    }
+
+}
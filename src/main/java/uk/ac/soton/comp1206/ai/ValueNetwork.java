@@ -0,0 +1,371 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * The ValueNetwork estimates how many more points a game will score from the state of its board after a move. It is a
+ * small neural network with one hidden layer of tanh units, or a linear model when there are no hidden units, held in
+ * primitive arrays.
+ *
+ * The inputs are whether each cell is filled followed by the features of the BoardEvaluator. They are normalised by a
+ * mean and scale fixed when the network is created, and the output is multiplied by an output scale, so training
+ * works on values of about one.
+ *
+ * As an Evaluator it returns the score after the move plus the estimated points still to come, so a policy built on it
+ * weighs the points of a move against the board it leaves. Evaluating and training use scratch arrays and allocate
+ * nothing, so each thread should use its own copy.
+ *
+ * Networks are saved as a small binary file: a header followed by every parameter as a double.
+ */
+public class ValueNetwork implements Evaluator {
+
+    /**
+     * Marks the start of a network file ("TETV")
+     */
+    private static final int MAGIC = 0x54455456;
+
+    /**
+     * Version of the file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of columns of the boards this network evaluates
+     */
+    private final int cols;
+
+    /**
+     * Number of rows of the boards this network evaluates
+     */
+    private final int rows;
+
+    /**
+     * Number of inputs: one per cell, then the features of the BoardEvaluator
+     */
+    private final int inputs;
+
+    /**
+     * Number of hidden units, or 0 for a linear model
+     */
+    private final int hidden;
+
+    /**
+     * Mean of each input, subtracted before the input is used
+     */
+    private final double[] inputMean;
+
+    /**
+     * Scale of each input, applied after the mean is subtracted
+     */
+    private final double[] inputScale;
+
+    /**
+     * Scale of the output, in points
+     */
+    private double outputScale;
+
+    /**
+     * Weights from the inputs to the hidden units, hidden unit by hidden unit
+     */
+    private final double[] hiddenWeights;
+
+    /**
+     * Bias of each hidden unit
+     */
+    private final double[] hiddenBias;
+
+    /**
+     * Weights from the hidden units (or the inputs of a linear model) to the output
+     */
+    private final double[] outputWeights;
+
+    /**
+     * Bias of the output
+     */
+    private double outputBias;
+
+    /**
+     * Works out the BoardEvaluator features of the inputs
+     */
+    private final BoardEvaluator features = new BoardEvaluator();
+
+    /**
+     * Scratch raw inputs
+     */
+    private final double[] raw;
+
+    /**
+     * Scratch normalised inputs
+     */
+    private final double[] normalised;
+
+    /**
+     * Scratch activations of the hidden units
+     */
+    private final double[] activations;
+
+    /**
+     * Create a network with small random weights and no normalisation
+     * @param cols number of columns of the boards to evaluate
+     * @param rows number of rows of the boards to evaluate
+     * @param hidden number of hidden units, or 0 for a linear model
+     * @param seed seed of the random weights
+     */
+    public ValueNetwork(int cols, int rows, int hidden, long seed) {
+        this.cols = cols;
+        this.rows = rows;
+        this.inputs = inputCount(cols, rows);
+        this.hidden = hidden;
+        this.inputMean = new double[inputs];
+        this.inputScale = new double[inputs];
+        Arrays.fill(inputScale, 1);
+        this.outputScale = 1;
+        this.hiddenWeights = new double[hidden * inputs];
+        this.hiddenBias = new double[hidden];
+        this.outputWeights = new double[hidden > 0 ? hidden : inputs];
+        this.raw = new double[inputs];
+        this.normalised = new double[inputs];
+        this.activations = new double[outputWeights.length];
+
+        // Xavier initialisation
+        var random = new Random(seed);
+        double hiddenRange = Math.sqrt(6.0 / (inputs + Math.max(hidden, 1)));
+        for (int i = 0; i < hiddenWeights.length; i++) {
+            hiddenWeights[i] = (random.nextDouble() * 2 - 1) * hiddenRange;
+        }
+        double outputRange = Math.sqrt(6.0 / (outputWeights.length + 1));
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (random.nextDouble() * 2 - 1) * outputRange;
+        }
+    }
+
+    /**
+     * Create a copy of a network, with its own scratch arrays, for another thread
+     * @param other network to copy
+     */
+    public ValueNetwork(ValueNetwork other) {
+        this(other.cols, other.rows, other.hidden, 0);
+        System.arraycopy(other.inputMean, 0, inputMean, 0, inputs);
+        System.arraycopy(other.inputScale, 0, inputScale, 0, inputs);
+        outputScale = other.outputScale;
+        System.arraycopy(other.hiddenWeights, 0, hiddenWeights, 0, hiddenWeights.length);
+        System.arraycopy(other.hiddenBias, 0, hiddenBias, 0, hidden);
+        System.arraycopy(other.outputWeights, 0, outputWeights, 0, outputWeights.length);
+        outputBias = other.outputBias;
+    }
+
+    /**
+     * Get the number of inputs of a network for a board size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return number of inputs
+     */
+    public static int inputCount(int cols, int rows) {
+        return cols * rows + BoardEvaluator.FEATURES;
+    }
+
+    /**
+     * Score a board after a move: the score so far plus the points estimated to come
+     * @param after the simulation after the move
+     * @param lines number of lines the move cleared
+     * @return score, higher is better
+     */
+    @Override
+    public double evaluate(Simulation after, int lines) {
+        encode(after, lines, raw, 0);
+        return after.getScore() + predict(raw, 0);
+    }
+
+    /**
+     * Get the name of this evaluator
+     * @return name
+     */
+    @Override
+    public String getName() {
+        return hidden > 0 ? "value-mlp" : "value-linear";
+    }
+
+    /**
+     * Write the raw inputs of a board after a move
+     * @param after the simulation after the move
+     * @param lines number of lines the move cleared
+     * @param out array to write the inputs into
+     * @param offset index of the first input in the array
+     */
+    public void encode(Simulation after, int lines, double[] out, int offset) {
+        if (after.getCols() != cols || after.getRows() != rows) {
+            throw new IllegalArgumentException("Network is for " + cols + "x" + rows + " boards");
+        }
+        int[] cells = after.getCells();
+        for (int i = 0; i < cells.length; i++) {
+            out[offset + i] = cells[i] != 0 ? 1 : 0;
+        }
+        features.extract(after, lines, normalised);
+        System.arraycopy(normalised, 0, out, offset + cells.length, BoardEvaluator.FEATURES);
+    }
+
+    /**
+     * Estimate the points still to come
+     * @param in array holding raw inputs
+     * @param offset index of the first input in the array
+     * @return estimated points
+     */
+    public double predict(double[] in, int offset) {
+        return forward(in, offset) * outputScale;
+    }
+
+    /**
+     * Take one step of stochastic gradient descent towards a target, on the squared error
+     * @param in array holding raw inputs
+     * @param offset index of the first input in the array
+     * @param target points that actually came
+     * @param rate learning rate
+     * @return squared error before the step, in units of the output scale
+     */
+    public double train(double[] in, int offset, double target, double rate) {
+        double error = forward(in, offset) - target / outputScale;
+
+        // Output layer
+        for (int j = 0; j < outputWeights.length; j++) {
+            double gradient = error * activations[j];
+            if (hidden > 0) {
+                // Back-propagate through tanh before changing the output weight
+                double delta = error * outputWeights[j] * (1 - activations[j] * activations[j]);
+                int row = j * inputs;
+                for (int i = 0; i < inputs; i++) {
+                    hiddenWeights[row + i] -= rate * delta * normalised[i];
+                }
+                hiddenBias[j] -= rate * delta;
+            }
+            outputWeights[j] -= rate * gradient;
+        }
+        outputBias -= rate * error;
+        return error * error;
+    }
+
+    /**
+     * Run the network, leaving the normalised inputs and activations in the scratch arrays
+     * @param in array holding raw inputs
+     * @param offset index of the first input in the array
+     * @return output in units of the output scale
+     */
+    private double forward(double[] in, int offset) {
+        for (int i = 0; i < inputs; i++) {
+            normalised[i] = (in[offset + i] - inputMean[i]) * inputScale[i];
+        }
+        if (hidden > 0) {
+            for (int j = 0; j < hidden; j++) {
+                double sum = hiddenBias[j];
+                int row = j * inputs;
+                for (int i = 0; i < inputs; i++) {
+                    sum += hiddenWeights[row + i] * normalised[i];
+                }
+                activations[j] = Math.tanh(sum);
+            }
+        }
+        else {
+            System.arraycopy(normalised, 0, activations, 0, inputs);
+        }
+        double output = outputBias;
+        for (int j = 0; j < activations.length; j++) {
+            output += outputWeights[j] * activations[j];
+        }
+        return output;
+    }
+
+    /**
+     * Fix the normalisation from a set of examples, so each input has mean 0 and spread 1 and the targets have
+     * spread about 1. Should be called once, before training.
+     * @param in raw inputs of the examples, one after another
+     * @param targets target of each example
+     * @param count number of examples
+     */
+    public void normalise(double[] in, double[] targets, int count) {
+        double targetSquares = 0;
+        for (int i = 0; i < inputs; i++) {
+            double sum = 0;
+            double squares = 0;
+            for (int n = 0; n < count; n++) {
+                double value = in[n * inputs + i];
+                sum += value;
+                squares += value * value;
+            }
+            double mean = count > 0 ? sum / count : 0;
+            double variance = count > 0 ? squares / count - mean * mean : 0;
+            inputMean[i] = mean;
+            inputScale[i] = variance > 1e-9 ? 1 / Math.sqrt(variance) : 1;
+        }
+        for (int n = 0; n < count; n++) {
+            targetSquares += targets[n] * targets[n];
+        }
+        outputScale = count > 0 && targetSquares > 0 ? Math.sqrt(targetSquares / count) : 1;
+    }
+
+    /**
+     * Get the number of hidden units
+     * @return hidden units, or 0 for a linear model
+     */
+    public int getHidden() {
+        return hidden;
+    }
+
+    /**
+     * Get the number of inputs
+     * @return inputs
+     */
+    public int getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Write this network to a file, replacing the previous one only once the new one is complete
+     * @param path file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        int parameters = 2 * inputs + 1 + hiddenWeights.length + hidden + outputWeights.length + 1;
+        var bytes = ByteBuffer.allocate(5 * Integer.BYTES + parameters * Double.BYTES);
+        bytes.putInt(MAGIC).putInt(VERSION).putInt(cols).putInt(rows).putInt(hidden);
+        DoubleBuffer values = bytes.asDoubleBuffer();
+        values.put(inputMean).put(inputScale).put(outputScale);
+        values.put(hiddenWeights).put(hiddenBias).put(outputWeights).put(outputBias);
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, bytes.array());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a network from a file written by save
+     * @param path file to read
+     * @return network
+     * @throws IOException if the file cannot be read or is not a network
+     */
+    public static ValueNetwork load(Path path) throws IOException {
+        var bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (bytes.remaining() < 5 * Integer.BYTES || bytes.getInt() != MAGIC || bytes.getInt() != VERSION) {
+            throw new IOException(path + " is not a value network");
+        }
+        var network = new ValueNetwork(bytes.getInt(), bytes.getInt(), bytes.getInt(), 0);
+        DoubleBuffer values = bytes.asDoubleBuffer();
+        int parameters = 2 * network.inputs + 1 + network.hiddenWeights.length + network.hidden
+            + network.outputWeights.length + 1;
+        if (values.remaining() != parameters) {
+            throw new IOException(path + " has " + values.remaining() + " parameters but expected " + parameters);
+        }
+        values.get(network.inputMean).get(network.inputScale);
+        network.outputScale = values.get();
+        values.get(network.hiddenWeights).get(network.hiddenBias).get(network.outputWeights);
+        network.outputBias = values.get();
+        return network;
+    }
+
+}
@@ -0,0 +1,73 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.Set;
+import javafx.scene.Node;
+import uk.ac.soton.comp1206.event.CellClickedListener;
+import uk.ac.soton.comp1206.event.RightClickedListener;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A Board is a visual component showing the main game grid, with the current piece hovering at a cursor cell. Cells
+ * are addressed by column and row, so a board is free to draw them as one node each (GameBoard) or all on one canvas
+ * (CanvasBoard).
+ */
+public interface Board {
+
+    /**
+     * Get the node to add to the scene
+     * @return node of this board
+     */
+    public Node asNode();
+
+    /**
+     * Get the number of columns
+     * @return columns
+     */
+    public int getCols();
+
+    /**
+     * Get the number of rows
+     * @return rows
+     */
+    public int getRows();
+
+    /**
+     * Get the column of the cursor, where the current piece hovers
+     * @return column
+     */
+    public int getCursorX();
+
+    /**
+     * Get the row of the cursor, where the current piece hovers
+     * @return row
+     */
+    public int getCursorY();
+
+    /**
+     * Move the cursor and show the given piece hovering there
+     * @param gamePiece piece to hover
+     * @param rotation rotation of the piece
+     * @param x column of the cursor
+     * @param y row of the cursor
+     */
+    public void pieceChanged(GamePiece gamePiece, int rotation, int x, int y);
+
+    /**
+     * Fade out cleared cells
+     * @param blockCoordinates coordinates of the cells to fade out
+     */
+    public void fadeOut(Set<GameBlockCoordinate> blockCoordinates);
+
+    /**
+     * Set the listener to handle an event when a cell is clicked with the primary button
+     * @param listener listener to add
+     */
+    public void setOnCellClicked(CellClickedListener listener);
+
+    /**
+     * Set the listener to handle an event when the board is clicked with the secondary button
+     * @param listener listener to add
+     */
+    public void setRightClickedListener(RightClickedListener listener);
+
+}
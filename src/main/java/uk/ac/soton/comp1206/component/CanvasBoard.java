@@ -0,0 +1,709 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.BitSet;
+import java.util.Set;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.CellClickedListener;
+import uk.ac.soton.comp1206.event.RightClickedListener;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.ui.RenderStats;
+import uk.ac.soton.comp1206.ui.RepaintScheduler;
+
+/**
+ * A CanvasBoard is a visual component to represent the main game grid, like GameBoard, but it draws every cell on one
+ * Canvas and works out which cell the mouse is over itself. The scene graph holds one node however big the grid is,
+ * instead of one GameBlock per cell.
+ *
+ * Like GameBoard it is only a visual representation: it repaints the cells the Grid reports as changed, and the
+ * hovering piece is drawn on a HoverOverlay above the canvas without writing to the Grid. Changed cells are only
+ * marked dirty, and painted together once per pulse by the RepaintScheduler.
+ *
+ * Boards too big to show in full can be zoomed with the scroll wheel and panned by dragging, and the view follows the
+ * cursor. Only the cells inside the viewport are painted. Once cells are smaller than MIN_SPRITE_SIZE they are shaded
+ * flat, a run of equal cells at a time, and once they are smaller than a pixel one cell is sampled per pixel, so a
+ * repaint costs at most one fill per pixel of the viewport however big the board is.
+ */
+public class CanvasBoard extends Pane implements Board {
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(CanvasBoard.class);
+
+    /**
+     * The biggest a cell can be zoomed to, in pixels
+     */
+    private static final double MAX_CELL_SIZE = 64;
+
+    /**
+     * The smallest cell drawn from sprites; smaller cells are shaded flat
+     */
+    private static final double MIN_SPRITE_SIZE = 8;
+
+    /**
+     * How much one step of the scroll wheel zooms
+     */
+    private static final double ZOOM_STEP = 1.25;
+
+    /**
+     * The grid this board represents
+     */
+    private final Grid grid;
+
+    /**
+     * Number of columns in the board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the board
+     */
+    private final int rows;
+
+    /**
+     * The width of a cell when the whole board fits the view
+     */
+    private final double baseCellWidth;
+
+    /**
+     * The height of a cell when the whole board fits the view
+     */
+    private final double baseCellHeight;
+
+    /**
+     * The biggest zoom, at which the larger side of a cell is MAX_CELL_SIZE
+     */
+    private final double maxZoom;
+
+    /**
+     * The canvas every cell is drawn on
+     */
+    private final Canvas canvas;
+
+    /**
+     * The overlay the hovering piece is drawn on
+     */
+    private final HoverOverlay hoverOverlay;
+
+    /**
+     * The opacity of the white fade over each cell, by index y * cols + x, or 0 if it is not fading
+     */
+    private final double[] fadeOpacity;
+
+    /**
+     * Animates the fading cells while there are any
+     */
+    private final FadeAnimator fades;
+
+    /**
+     * The cells waiting to be painted at the next pulse, by index y * cols + x
+     */
+    private final BitSet dirtyCells = new BitSet();
+
+    /**
+     * Whether a repaint is scheduled
+     */
+    private boolean dirty;
+
+    /**
+     * Whether the whole viewport is to be painted at the next pulse
+     */
+    private boolean viewDirty;
+
+    /**
+     * Paints the dirty cells, scheduled when the first cell becomes dirty
+     */
+    private final Runnable render = this::render;
+
+    /**
+     * The sprites the cells are drawn from
+     */
+    private TileSprites sprites;
+
+    /**
+     * The cell width the sprites were rendered at
+     */
+    private double spriteWidth;
+
+    /**
+     * The cell height the sprites were rendered at
+     */
+    private double spriteHeight;
+
+    /**
+     * How far the board is zoomed in, 1 when it fits the view
+     */
+    private double zoom = 1;
+
+    /**
+     * The left of the viewport on the zoomed board, in pixels
+     */
+    private double viewX;
+
+    /**
+     * The top of the viewport on the zoomed board, in pixels
+     */
+    private double viewY;
+
+    /**
+     * The x-coordinate of the mouse when it was pressed or last dragged
+     */
+    private double dragX;
+
+    /**
+     * The y-coordinate of the mouse when it was pressed or last dragged
+     */
+    private double dragY;
+
+    /**
+     * Column of the cursor
+     */
+    private int cursorX;
+
+    /**
+     * Row of the cursor
+     */
+    private int cursorY;
+
+    /**
+     * The piece hovering at the cursor
+     */
+    private GamePiece currentPiece = GamePiece.createPiece(0);
+
+    /**
+     * The rotation of the hovering piece
+     */
+    private int currentRotation;
+
+    /**
+     * The listener to call when a cell is clicked
+     */
+    private CellClickedListener cellClickedListener;
+
+    /**
+     * The listener to call when the board is right clicked
+     */
+    private RightClickedListener rightClickedListener;
+
+    /**
+     * Create a new CanvasBoard, based off a given grid, with a visual width and height.
+     * @param grid linked grid
+     * @param width the visual width
+     * @param height the visual height
+     */
+    public CanvasBoard(Grid grid, double width, double height) {
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.baseCellWidth = width / cols;
+        this.baseCellHeight = height / rows;
+        this.maxZoom = Math.max(1, MAX_CELL_SIZE / Math.max(baseCellWidth, baseCellHeight));
+        this.fadeOpacity = new double[cols * rows];
+        this.fades = new FadeAnimator(cols * rows, this::fadeChanged);
+        this.cursorX = cols / 2;
+        this.cursorY = rows / 2;
+        logger.info("Building canvas board: {} x {}", cols, rows);
+
+        // Size the board to its canvas, with the hover on top
+        canvas = new Canvas(width, height);
+        hoverOverlay = new HoverOverlay(grid, width, height);
+        getChildren().addAll(canvas, hoverOverlay);
+        setMinSize(width, height);
+        setPrefSize(width, height);
+        setMaxSize(width, height);
+
+        // Map the mouse to cells, and zoom and pan the view
+        canvas.setOnMouseMoved(this::mouseMoved);
+        canvas.setOnMouseClicked(this::mouseClicked);
+        canvas.setOnMousePressed(this::mousePressed);
+        canvas.setOnMouseDragged(this::mouseDragged);
+        canvas.setOnScroll(this::scrolled);
+
+        paintAll();
+
+        //Paint again once shown, at the output scale of the window
+        sceneProperty().addListener((observable, oldScene, newScene) -> markViewDirty());
+
+        //Repaint the cells whenever the grid publishes changes
+        grid.addListener(this::gridChanged);
+    }
+
+    /**
+     * Get the node to add to the scene
+     * @return this board
+     */
+    @Override
+    public Node asNode() {
+        return this;
+    }
+
+    /**
+     * Get the number of columns
+     * @return columns
+     */
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows
+     * @return rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the column of the cursor
+     * @return column
+     */
+    @Override
+    public int getCursorX() {
+        return cursorX;
+    }
+
+    /**
+     * Get the row of the cursor
+     * @return row
+     */
+    @Override
+    public int getCursorY() {
+        return cursorY;
+    }
+
+    /**
+     * Set the listener to handle an event when a cell is clicked
+     * @param listener listener to add
+     */
+    @Override
+    public void setOnCellClicked(CellClickedListener listener) {
+        this.cellClickedListener = listener;
+    }
+
+    /**
+     * Set the listener to handle an event when right mouse is clicked
+     * @param listener listener to add
+     */
+    @Override
+    public void setRightClickedListener(RightClickedListener listener) {
+        this.rightClickedListener = listener;
+    }
+
+    /**
+     * Get the zoom of the view
+     * @return zoom, 1 when the whole board fits the view
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Zoom the view, keeping the centre of the view where it is
+     * @param zoom new zoom, limited to between 1 and the zoom at which cells are MAX_CELL_SIZE
+     */
+    public void setZoom(double zoom) {
+        zoomAt(zoom, canvas.getWidth() / 2, canvas.getHeight() / 2);
+    }
+
+    /**
+     * Get the width of a cell at the current zoom
+     * @return width in pixels
+     */
+    private double cellWidth() {
+        return baseCellWidth * zoom;
+    }
+
+    /**
+     * Get the height of a cell at the current zoom
+     * @return height in pixels
+     */
+    private double cellHeight() {
+        return baseCellHeight * zoom;
+    }
+
+    /**
+     * Find the cell under a point of the canvas
+     * @param x x-coordinate on the canvas
+     * @param y y-coordinate on the canvas
+     * @return index y * cols + x of the cell, or -1 if the point is outside the board
+     */
+    public int cellAt(double x, double y) {
+        if (x < 0 || y < 0 || x >= canvas.getWidth() || y >= canvas.getHeight()) {
+            return -1;
+        }
+        int col = (int) ((x + viewX) / cellWidth());
+        int row = (int) ((y + viewY) / cellHeight());
+        if (col >= cols || row >= rows) {
+            return -1;
+        }
+        return row * cols + col;
+    }
+
+    /**
+     * Move the hover to the cell under the mouse
+     * @param event mouse event
+     */
+    private void mouseMoved(MouseEvent event) {
+        int cell = cellAt(event.getX(), event.getY());
+        if (cell >= 0 && cell != cursorY * cols + cursorX) {
+            pieceChanged(currentPiece, currentRotation, cell % cols, cell / cols);
+        }
+    }
+
+    /**
+     * Remember where a drag starts
+     * @param event mouse event
+     */
+    private void mousePressed(MouseEvent event) {
+        dragX = event.getX();
+        dragY = event.getY();
+    }
+
+    /**
+     * Pan the view by the distance the mouse was dragged
+     * @param event mouse event
+     */
+    private void mouseDragged(MouseEvent event) {
+        panBy(dragX - event.getX(), dragY - event.getY());
+        dragX = event.getX();
+        dragY = event.getY();
+    }
+
+    /**
+     * Zoom in or out around the mouse
+     * @param event scroll event
+     */
+    private void scrolled(ScrollEvent event) {
+        if (event.getDeltaY() != 0) {
+            double factor = event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+            zoomAt(zoom * factor, event.getX(), event.getY());
+        }
+    }
+
+    /**
+     * Handle a click on the board
+     * @param event mouse event
+     */
+    private void mouseClicked(MouseEvent event) {
+        // A drag pans the view instead of clicking
+        if (!event.isStillSincePress()) {
+            return;
+        }
+        int cell = cellAt(event.getX(), event.getY());
+        if (cell < 0) {
+            return;
+        }
+        logger.info("Cell clicked: {},{}", cell % cols, cell / cols);
+        if (event.getButton() == MouseButton.SECONDARY) {
+            if (rightClickedListener != null) {
+                rightClickedListener.rightClicked();
+            }
+        }
+        else if (cellClickedListener != null) {
+            cellClickedListener.cellClicked(cell % cols, cell / cols);
+        }
+    }
+
+    /**
+     * Zoom the view, keeping a point of the canvas over the same place on the board
+     * @param zoom new zoom
+     * @param x x-coordinate on the canvas to zoom around
+     * @param y y-coordinate on the canvas to zoom around
+     */
+    private void zoomAt(double zoom, double x, double y) {
+        double next = Math.max(1, Math.min(maxZoom, zoom));
+        if (next == this.zoom) {
+            return;
+        }
+        viewX = (viewX + x) * next / this.zoom - x;
+        viewY = (viewY + y) * next / this.zoom - y;
+        this.zoom = next;
+        markViewDirty();
+        panBy(0, 0);
+    }
+
+    /**
+     * Move the view, keeping it on the board
+     * @param dx distance to move right, in pixels
+     * @param dy distance to move down, in pixels
+     */
+    private void panBy(double dx, double dy) {
+        double x = Math.max(0, Math.min(cols * cellWidth() - canvas.getWidth(), viewX + dx));
+        double y = Math.max(0, Math.min(rows * cellHeight() - canvas.getHeight(), viewY + dy));
+        if (x != viewX || y != viewY) {
+            viewX = x;
+            viewY = y;
+            markViewDirty();
+        }
+        hoverOverlay.setView(viewX, viewY, cellWidth(), cellHeight());
+    }
+
+    /**
+     * Pan the view just far enough to show a cell
+     * @param x column
+     * @param y row
+     */
+    private void scrollTo(int x, int y) {
+        double left = x * cellWidth() - viewX;
+        double top = y * cellHeight() - viewY;
+        double dx = left < 0 ? left : Math.max(0, left + cellWidth() - canvas.getWidth());
+        double dy = top < 0 ? top : Math.max(0, top + cellHeight() - canvas.getHeight());
+        if (dx != 0 || dy != 0) {
+            panBy(dx, dy);
+        }
+    }
+
+    /**
+     * Move the cursor and show the given piece hovering there
+     * @param gamePiece piece to hover
+     * @param rotation rotation of the piece
+     * @param x column of the cursor
+     * @param y row of the cursor
+     */
+    @Override
+    public void pieceChanged(GamePiece gamePiece, int rotation, int x, int y) {
+        currentPiece = gamePiece;
+        currentRotation = rotation;
+        cursorX = x;
+        cursorY = y;
+        // Keep the cursor in view when the keyboard moves it
+        scrollTo(x, y);
+        hoverOverlay.show(gamePiece, rotation, x, y);
+    }
+
+    /**
+     * Repaint the cells whose values changed in the grid
+     * @param grid the grid that changed
+     * @param changedCells the changed cells, by index y * cols + x
+     * @param clearedCells the cleared cells, by index y * cols + x
+     */
+    private void gridChanged(Grid grid, BitSet changedCells, BitSet clearedCells) {
+        markDirty(changedCells);
+    }
+
+    /**
+     * Fade out cleared cells
+     * @param blockCoordinates coordinates of the cells to fade out
+     */
+    @Override
+    public void fadeOut(Set<GameBlockCoordinate> blockCoordinates) {
+        logger.info("Fading out cells");
+        for (GameBlockCoordinate coordinate : blockCoordinates) {
+            fades.fadeOut(coordinate.getY() * cols + coordinate.getX());
+        }
+    }
+
+    /**
+     * Repaint a fading cell with its new opacity
+     * @param cell index of the cell, y * cols + x
+     * @param opacity opacity of the fade
+     */
+    private void fadeChanged(int cell, double opacity) {
+        fadeOpacity[cell] = opacity;
+        markDirty(cell);
+    }
+
+    /**
+     * Repaint every cell in the viewport at the next pulse
+     */
+    public void repaint() {
+        markViewDirty();
+    }
+
+    /**
+     * Repaint every cell in the viewport
+     */
+    public void paintAll() {
+        var gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (cellWidth() < MIN_SPRITE_SIZE || cellHeight() < MIN_SPRITE_SIZE) {
+            paintFlat(gc);
+            return;
+        }
+        int firstCol = (int) (viewX / cellWidth());
+        int firstRow = (int) (viewY / cellHeight());
+        int lastCol = Math.min(cols - 1, (int) ((viewX + canvas.getWidth()) / cellWidth()));
+        int lastRow = Math.min(rows - 1, (int) ((viewY + canvas.getHeight()) / cellHeight()));
+        for (int y = firstRow; y <= lastRow; y++) {
+            for (int x = firstCol; x <= lastCol; x++) {
+                paintCell(gc, x, y);
+            }
+        }
+    }
+
+    /**
+     * Shade the viewport flat: one fill per run of equal cells in a row of cells, or of sampled cells in a row of
+     * pixels once cells are smaller than a pixel
+     * @param gc graphics context of the canvas
+     */
+    private void paintFlat(GraphicsContext gc) {
+        double width = Math.min(canvas.getWidth(), cols * cellWidth() - viewX);
+        double height = Math.min(canvas.getHeight(), rows * cellHeight() - viewY);
+        gc.setFill(TileSprites.EMPTY);
+        gc.fillRect(0, 0, width, height);
+
+        // Step a cell at a time, or a pixel at a time once cells are smaller
+        double stepX = Math.max(1, cellWidth());
+        double stepY = Math.max(1, cellHeight());
+        for (long slotY = (long) (viewY / stepY); slotY * stepY - viewY < height; slotY++) {
+            int y = Math.min(rows - 1, (int) (slotY * stepY / cellHeight()));
+            double top = slotY * stepY - viewY;
+            double runLeft = 0;
+            int runValue = 0;
+            for (long slotX = (long) (viewX / stepX); ; slotX++) {
+                double left = Math.max(0, slotX * stepX - viewX);
+                boolean end = left >= width;
+                int value = end ? -1 : grid.get(Math.min(cols - 1, (int) (slotX * stepX / cellWidth())), y);
+                // Fill the run that just ended
+                if (value != runValue) {
+                    if (runValue > 0) {
+                        RenderStats.painted();
+                        gc.setFill(GameBlock.COLOURS[runValue]);
+                        gc.fillRect(runLeft, top, Math.min(left, width) - runLeft, stepY);
+                    }
+                    runLeft = left;
+                    runValue = value;
+                }
+                if (end) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark some cells to be repainted at the next pulse
+     * @param cells cells to repaint, by index y * cols + x
+     */
+    private void markDirty(BitSet cells) {
+        for (int cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+            markDirty(cell);
+        }
+    }
+
+    /**
+     * Mark a cell to be repainted at the next pulse
+     * @param cell cell to repaint, by index y * cols + x
+     */
+    private void markDirty(int cell) {
+        RenderStats.requested();
+        dirtyCells.set(cell);
+        scheduleRender();
+    }
+
+    /**
+     * Mark the whole viewport to be repainted at the next pulse
+     */
+    private void markViewDirty() {
+        RenderStats.requested();
+        viewDirty = true;
+        scheduleRender();
+    }
+
+    /**
+     * Schedule a repaint at the next pulse, unless one is scheduled already
+     */
+    private void scheduleRender() {
+        if (!dirty) {
+            dirty = true;
+            RepaintScheduler.schedule(canvas, render);
+        }
+    }
+
+    /**
+     * Paint the dirty cells, or the whole viewport when it moved, more cells changed than it has room for, or cells
+     * are smaller than a pixel
+     */
+    private void render() {
+        dirty = false;
+        // Below a pixel per cell the view is sampled one cell per pixel, which only a whole repaint does
+        boolean subPixel = cellWidth() < 1 || cellHeight() < 1;
+        double visible = Math.min(cols, canvas.getWidth() / cellWidth() + 1)
+            * Math.min(rows, canvas.getHeight() / cellHeight() + 1);
+        if (viewDirty || subPixel || dirtyCells.cardinality() > visible) {
+            viewDirty = false;
+            paintAll();
+        }
+        else {
+            var gc = canvas.getGraphicsContext2D();
+            for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1)) {
+                paintCell(gc, cell % cols, cell / cols);
+            }
+        }
+        dirtyCells.clear();
+    }
+
+    /**
+     * Get the sprites for the size of the cells, fetching them again if the cache was invalidated, the output scale
+     * changed or the board was zoomed. Zoomed sprites are rendered at the next power of two up and scaled down, so
+     * zooming only ever needs a few sizes.
+     * @return sprites
+     */
+    private TileSprites sprites() {
+        double scale = TileSprites.outputScale(this);
+        double width = zoom == 1 ? baseCellWidth : spriteSize(cellWidth());
+        double height = zoom == 1 ? baseCellHeight : spriteSize(cellHeight());
+        if (sprites == null || !sprites.isValid(scale) || width != spriteWidth || height != spriteHeight) {
+            sprites = TileSprites.get(width, height, scale);
+            spriteWidth = width;
+            spriteHeight = height;
+        }
+        return sprites;
+    }
+
+    /**
+     * Round a cell size up to a power of two
+     * @param size size in pixels
+     * @return size to render sprites at
+     */
+    private static double spriteSize(double size) {
+        return Math.pow(2, Math.ceil(Math.log(size) / Math.log(2)));
+    }
+
+    /**
+     * Paint one cell, if it is in the viewport: empty, or a tile in the colour of its value
+     * @param gc graphics context of the canvas
+     * @param x column
+     * @param y row
+     */
+    private void paintCell(GraphicsContext gc, int x, int y) {
+        double cellWidth = cellWidth();
+        double cellHeight = cellHeight();
+        double left = x * cellWidth - viewX;
+        double top = y * cellHeight - viewY;
+        if (left + cellWidth <= 0 || top + cellHeight <= 0 || left >= canvas.getWidth() || top >= canvas.getHeight()) {
+            return;
+        }
+        RenderStats.painted();
+        gc.clearRect(left, top, cellWidth, cellHeight);
+
+        // Draw the cached sprite of the cell, or shade it flat when it is too small to show the detail
+        int value = grid.get(x, y);
+        if (cellWidth >= MIN_SPRITE_SIZE && cellHeight >= MIN_SPRITE_SIZE) {
+            gc.drawImage(sprites().tile(value), left, top, cellWidth, cellHeight);
+        }
+        else {
+            gc.setFill(value == 0 ? TileSprites.EMPTY : GameBlock.COLOURS[value]);
+            gc.fillRect(left, top, cellWidth, cellHeight);
+        }
+
+        // Fade
+        if (fadeOpacity[y * cols + x] > 0) {
+            gc.setFill(Color.rgb(255, 255, 255, fadeOpacity[y * cols + x]));
+            gc.fillRect(left, top, cellWidth, cellHeight);
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import javafx.animation.AnimationTimer;
+import uk.ac.soton.comp1206.event.FadeListener;
+import uk.ac.soton.comp1206.ui.ActivityManager;
+import uk.ac.soton.comp1206.ui.RenderQuality;
+
+/**
+ * The FadeAnimator fades out the cells of one board. A single timer advances every fading cell from the timestamp of
+ * the pulse, so a fade takes the same time whatever the frame rate, and runs only while some cell is fading. The cost
+ * per frame is one pass over the fading cells however many lines were cleared. At Low render quality, or while the
+ * window is minimised, cells are cleared at once instead of fading.
+ */
+public class FadeAnimator {
+
+    /**
+     * How long a fade takes, in nanoseconds: the ten frames at 60 frames a second the blocks used to take
+     */
+    public static final long FADE_TIME = 166_666_667L;
+
+    /**
+     * Start time of a cell whose fade begins on the next frame
+     */
+    private static final long NOT_STARTED = -1;
+
+    /**
+     * Told every time the opacity of a cell changes
+     */
+    private final FadeListener listener;
+
+    /**
+     * When each fading cell started to fade, by index y * cols + x
+     */
+    private final long[] start;
+
+    /**
+     * The cells that are fading
+     */
+    private final BitSet fading = new BitSet();
+
+    /**
+     * The timer advancing the fades while there are any
+     */
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            advance(now);
+        }
+    };
+
+    /**
+     * Whether the timer is running
+     */
+    private boolean running;
+
+    /**
+     * Create an animator for a board
+     * @param cells number of cells on the board
+     * @param listener told every time the opacity of a cell changes
+     */
+    public FadeAnimator(int cells, FadeListener listener) {
+        this.listener = listener;
+        this.start = new long[cells];
+        Arrays.fill(start, NOT_STARTED);
+    }
+
+    /**
+     * Start fading a cell from full opacity, restarting it if it is already fading
+     * @param cell index of the cell, y * cols + x
+     */
+    public void fadeOut(int cell) {
+        if (!RenderQuality.get().fadesBlocks() || !ActivityManager.isShowing()) {
+            fading.clear(cell);
+            listener.fadeChanged(cell, 0);
+            return;
+        }
+        fading.set(cell);
+        start[cell] = NOT_STARTED;
+        listener.fadeChanged(cell, 1);
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    /**
+     * Check whether any cell is fading
+     * @return whether the animator is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Advance every fading cell to the time of a frame, and stop when none are left
+     * @param now time of the frame, in nanoseconds
+     */
+    private void advance(long now) {
+        for (int cell = fading.nextSetBit(0); cell >= 0; cell = fading.nextSetBit(cell + 1)) {
+            if (start[cell] == NOT_STARTED) {
+                start[cell] = now;
+            }
+            double opacity = Math.max(0, 1 - (now - start[cell]) / (double) FADE_TIME);
+            if (opacity == 0) {
+                fading.clear(cell);
+            }
+            listener.fadeChanged(cell, opacity);
+        }
+        if (fading.isEmpty()) {
+            timer.stop();
+            running = false;
+        }
+    }
+
+}
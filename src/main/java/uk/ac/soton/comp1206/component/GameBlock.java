@@ -1,12 +1,12 @@
 package uk.ac.soton.comp1206.component;
 
-import javafx.animation.AnimationTimer;
 import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.Property;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.paint.*;
+import uk.ac.soton.comp1206.ui.RenderStats;
+import uk.ac.soton.comp1206.ui.RepaintScheduler;
 
 /**
  * The Visual User Interface component representing a single block in the grid.
@@ -15,7 +15,10 @@ import javafx.scene.paint.*;
  *
  * Displays an empty square (when the value is 0) or a coloured square depending on value.
  *
- * The GameBlock value should be bound to a corresponding block in the Grid model.
+ * The GameBlock value is updated by its GameBoard whenever the corresponding block in the Grid model changes.
+ *
+ * Changes to the value and fading only mark the block dirty; it is painted once, at the next pulse, by the
+ * RepaintScheduler.
  */
 public class GameBlock extends Canvas {
 
@@ -72,9 +75,24 @@ public class GameBlock extends Canvas {
     private final IntegerProperty value = new SimpleIntegerProperty(0);
 
     /**
-     * Temporary value used to store the value that this block had before hovering
+     * Opacity of the white fade-out over this block, or 0 if it is not fading
+     */
+    private double fade = 0;
+
+    /**
+     * Whether a repaint of this block is scheduled
      */
-    private int tempValue = 0;
+    private boolean dirty = false;
+
+    /**
+     * The sprites this block is drawn from
+     */
+    private TileSprites sprites;
+
+    /**
+     * Paints this block, scheduled when it becomes dirty
+     */
+    private final Runnable render = this::render;
 
     /**
      * Create a new single Game Block
@@ -100,6 +118,9 @@ public class GameBlock extends Canvas {
 
         //When the value property is updated, call the internal updateValue method
         value.addListener(this::updateValue);
+
+        //Paint again once shown, at the output scale of the window
+        sceneProperty().addListener((observable, oldScene, newScene) -> paint());
     }
 
     /**
@@ -113,79 +134,48 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Handle painting of the block canvas
+     * Request painting of the block canvas, which happens once at the next pulse however many times it is requested
      */
     public void paint() {
-        //If the block is empty, paint as empty
-        if(value.get() == 0) {
-            paintEmpty();
-        } else {
-            //If the block is not empty, paint with the colour represented by the value
-            paintColor(COLOURS[value.get()], true);
-        }
-        //Draw a circle in the middle of the board if the board represents a piece
-        if (x == 1 && y == 1 && gameBoard instanceof PieceBoard) {
-            drawCircle();
+        RenderStats.requested();
+        if (!dirty) {
+            dirty = true;
+            RepaintScheduler.schedule(this, render);
         }
     }
 
     /**
-     * Paint this canvas empty
+     * Actually paint the block canvas from its value and fade, drawing the cached sprite of the cell
      */
-    private void paintEmpty() {
+    private void render() {
+        dirty = false;
+        RenderStats.painted();
         var gc = getGraphicsContext2D();
 
         //Clear
         gc.clearRect(0,0,width,height);
 
-        //Fill
-        //color = Color.rgb(102, 102, 102, 0.5);
-        gc.setFill(Color.rgb(102, 102, 102, 0.5));
-        gc.fillRect(0,0, width, height);
-
-        //Border
-        gc.setStroke(Color.rgb(0, 0, 0));
-        gc.strokeRect(0,0,width,height);
-
-        //Store the value before hovering
-        tempValue = getValue();
+        //If the block is fading, paint the fade over nothing
+        if (fade > 0) {
+            TileSprites.paintFlat(gc, Color.rgb(255, 255, 255, fade), 0, 0, width, height);
+        }
+        //Otherwise paint as empty, or with the colour represented by the value
+        else {
+            gc.drawImage(sprites().tile(value.get()), 0, 0, width, height);
+        }
     }
 
     /**
-     * Paint this canvas with the given colour
-     * @param colour the colour to paint
-     * @param tile indicates whether to draw a triangle in this block which illustrates a tile
+     * Get the sprites for the size of this block, fetching them again if the cache was invalidated or the output
+     * scale changed
+     * @return sprites
      */
-    private void paintColor(Color colour, boolean tile) {
-        var gc = getGraphicsContext2D();
-
-        //Clear
-        gc.clearRect(0,0,width,height);
-
-        //Colour fill
-        gc.setFill(colour);
-        gc.fillRect(0,0, width, height);
-
-        //Border
-        gc.setStroke(Color.BLACK);
-        gc.strokeRect(0,0,width,height);
-
-        //Display the block as a tile if it is not hovering
-        if (tile) {
-            //Draw the brighter triangle inside block
-            if (!colour.brighter().equals(colour)) {
-                gc.setFill(colour.brighter());
-                gc.fillPolygon(new double[]{0, 0, width}, new double[]{0, height, height}, 3);
-            }
-            //Draw the lighter triangle inside block
-            else {
-                gc.setFill(colour.darker());
-                gc.fillPolygon(new double[]{0, width, width}, new double[]{0, 0, height}, 3);
-            }
+    private TileSprites sprites() {
+        double scale = TileSprites.outputScale(this);
+        if (sprites == null || !sprites.isValid(scale)) {
+            sprites = TileSprites.get(width, height, scale);
         }
-
-        //Store the value before hovering
-        tempValue = getValue();
+        return sprites;
     }
 
     /**
@@ -213,77 +203,21 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Bind the value of this block to another property. Used to link the visual block to a corresponding block in the Grid.
-     * @param input property to bind the value to
-     */
-    public void bind(ObservableValue<? extends Number> input) {
-        value.bindBidirectional((Property<Number>) input);
-    }
-
-    /**
-     * Draw a circle inside this block
-     */
-    public void drawCircle() {
-        var gc = getGraphicsContext2D();
-        gc.setFill(Color.rgb(204, 204, 204, 0.5));
-        gc.fillOval(width/4, height/4, width/2, height/2);
-    }
-
-    /**
-     * Display this block as hovering
-     * @param green indicates whether to draw ths block green (means can place) or red (cannot place)
+     * Set the value of this block. Used to keep the visual block in step with the corresponding block in the Grid.
+     * @param value the new value
      */
-    public void hover(boolean green) {
-        //Store the value before hovering
-        tempValue = getValue();
-        // Display the block as green if it can be placed
-        if (green) {
-            paintColor(Color.rgb(0, 204, 0, 0.5), false);
-        }
-        // Display the block as red if it cannot be placed
-        else {
-            paintColor(Color.rgb(255, 0, 0, 0.5), false);
-        }
+    public void setValue(int value) {
+        this.value.set(value);
     }
 
     /**
-     * Stop this block from hovering
+     * Display this block as fading out when a line is completed. The board's FadeAnimator sets the opacity every
+     * frame until it reaches 0.
+     * @param opacity opacity of the white fade over the block, or 0 to stop fading
      */
-    public void quitHover() {
-        value.setValue(tempValue);
+    public void setFade(double opacity) {
+        fade = opacity;
         paint();
     }
 
-    /**
-     * Display this block as fading out when a line is completed
-     */
-    public void fadeOut() {
-        //Paint the block as empty at first
-        paintEmpty();
-        paintColor(Color.WHITE, false);
-        //Create animation
-        AnimationTimer animationTimer = new AnimationTimer() {
-            /**
-             * Initial opacity
-             */
-            private double opacity = 1;
-            @Override
-            public void handle(long l) {
-                //Paint the block with less opacity until it gets to 0
-                if (opacity > 0) {
-                    paintColor(Color.rgb(255, 255,255, opacity), false);
-                }
-                // When opacity is 0, stop the transition
-                else {
-                    paintEmpty();
-                    this.stop();
-                }
-                //Decrease opacity until it gets to 0
-                opacity -= 0.1;
-            }
-        };
-        //Start the animation
-        animationTimer.start();
-    }
-
 }
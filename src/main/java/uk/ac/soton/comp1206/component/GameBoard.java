@@ -1,15 +1,15 @@
 package uk.ac.soton.comp1206.component;
 
+import java.util.BitSet;
 import java.util.Set;
-import javafx.event.EventHandler;
-import javafx.event.EventType;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import org.apache.logging.log4j.LogManager;
+import javafx.scene.Node;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.BlockClickedListener;
-import uk.ac.soton.comp1206.event.HoverListener;
+import uk.ac.soton.comp1206.event.CellClickedListener;
 import uk.ac.soton.comp1206.event.RightClickedListener;
 import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.game.Grid;
@@ -23,8 +23,12 @@ import uk.ac.soton.comp1206.game.Grid;
  *
  * The GameBoard is only a visual representation and should not contain game logic or model logic in it, which should
  * take place in the Grid.
+ *
+ * The piece hovering at the cursor is drawn on a HoverOverlay laid over the blocks, so it never changes the blocks or
+ * the Grid. Each cell is a GameBlock node of its own; CanvasBoard is the alternative that draws every cell on one
+ * canvas.
  */
-public class GameBoard extends GridPane {
+public class GameBoard extends GridPane implements Board {
 
     /**
      * The logger of the class for printing information to console
@@ -68,13 +72,22 @@ public class GameBoard extends GridPane {
 
     private RightClickedListener rightClickedListener;
 
-    private HoverListener hoverListener;
-
     private GameBlock currentBlock;
     private GamePiece currentPiece;
+    private int currentRotation;
 
     protected boolean mainBoard = true;
 
+    /**
+     * The overlay the hovering piece is drawn on, created when a piece first hovers
+     */
+    private HoverOverlay hoverOverlay;
+
+    /**
+     * Animates the fading blocks, created on the first line cleared
+     */
+    private FadeAnimator fades;
+
     /**
      * Create a new GameBoard, based off a given grid, with a visual width and height.
      * @param grid linked grid
@@ -90,6 +103,9 @@ public class GameBoard extends GridPane {
 
         //Build the GameBoard
         build();
+
+        //Repaint the blocks whenever the grid publishes changes
+        grid.addListener(this::gridChanged);
     }
 
     /**
@@ -110,6 +126,36 @@ public class GameBoard extends GridPane {
 
         //Build the GameBoard
         build();
+
+        //Repaint the blocks whenever the grid publishes changes
+        grid.addListener(this::gridChanged);
+    }
+
+    /**
+     * Get the node to add to the scene
+     * @return this board
+     */
+    @Override
+    public Node asNode() {
+        return this;
+    }
+
+    /**
+     * Get the number of columns
+     * @return columns
+     */
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows
+     * @return rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
     }
 
     /**
@@ -170,8 +216,8 @@ public class GameBoard extends GridPane {
         //Add to our block directory
         blocks[x][y] = block;
 
-        //Link the GameBlock component to the corresponding value in the Grid
-        block.bind(grid.getGridProperty(x,y));
+        //Show the current value of the corresponding block in the Grid
+        block.setValue(grid.get(x,y));
 
         //Add a mouse click handler to the block to trigger GameBoard blockClicked method
         block.setOnMouseClicked((e) -> blockClicked(e, block));
@@ -179,13 +225,27 @@ public class GameBoard extends GridPane {
         // Add a mouse entered handler to the block to trigger pieceChanged method
         block.setOnMouseEntered(mouseEvent -> {
             if (mainBoard) {
-                pieceChanged(currentPiece, block);
+                pieceChanged(currentPiece, currentRotation, block);
             }
         });
 
         return block;
     }
 
+    /**
+     * Update the blocks whose values changed in the grid
+     * @param grid the grid that changed
+     * @param changedCells the changed cells, by index y * cols + x
+     * @param clearedCells the cleared cells, by index y * cols + x
+     */
+    private void gridChanged(Grid grid, BitSet changedCells, BitSet clearedCells) {
+        for (int i = changedCells.nextSetBit(0); i >= 0; i = changedCells.nextSetBit(i + 1)) {
+            int x = i % cols;
+            int y = i / cols;
+            blocks[x][y].setValue(grid.get(x, y));
+        }
+    }
+
     /**
      * Set the listener to handle an event when a block is clicked
      * @param listener listener to add
@@ -215,10 +275,20 @@ public class GameBoard extends GridPane {
         }
     }
 
+    /**
+     * Set the listener to handle an event when a cell is clicked
+     * @param listener listener to add
+     */
+    @Override
+    public void setOnCellClicked(CellClickedListener listener) {
+        setOnBlockClick(block -> listener.cellClicked(block.getX(), block.getY()));
+    }
+
     /**
      * Set the listener to handle an event when right mouse is clicked
      * @param rightClickedListener listener to add
      */
+    @Override
     public void setRightClickedListener(RightClickedListener rightClickedListener) {
         this.rightClickedListener = rightClickedListener;
     }
@@ -237,73 +307,39 @@ public class GameBoard extends GridPane {
         return currentBlock;
     }
 
-    /*public void setCurrentBlock(GamePiece currentPiece, GameBlock currentBlock) {
-        this.currentBlock = currentBlock;
-        this.currentPiece = currentPiece;
-    }*/
-
     /**
-     * Set the listener to handle an event when block needs to hover
-     * @param hoverListener listener to add
+     * Get the column of the current block
+     * @return column
      */
-    public void setHoverListener(HoverListener hoverListener) {
-        this.hoverListener = hoverListener;
+    @Override
+    public int getCursorX() {
+        return currentBlock.getX();
     }
 
     /**
-     * Display a piece as hovering
-     * @param gamePiece piece to hover
-     * @param gameBlock block to hover
-     * @param event mouse entered/exited event
+     * Get the row of the current block
+     * @return row
      */
-    public void hover(GamePiece gamePiece, GameBlock gameBlock, EventType<MouseEvent> event) {
-        if (hoverListener != null) {
-            // Hide previous hover
-            drawHover(gamePiece, currentBlock, "hide");
-            // Hide hover if mouse exited the block
-            if (event == MouseEvent.MOUSE_EXITED) {
-                drawHover(gamePiece, gameBlock, "hide");
-            }
-            // Show hover if mouse entered the block
-            else if (event == MouseEvent.MOUSE_ENTERED){
-                drawHover(gamePiece, gameBlock, "show");
-            }
-        }
+    @Override
+    public int getCursorY() {
+        return currentBlock.getY();
     }
 
-    /**
-     * Actually draw the piece as hovering
-     * @param gamePiece piece to hover
-     * @param gameBlock block to hover
-     * @param event mouse entered/exited event
-     */
-    private void drawHover(GamePiece gamePiece, GameBlock gameBlock, String event) {
-        // Get all blocks of the piece
-        int[][] gameBlocks = gamePiece.getBlocks();
-        // Draw each block as hovering
-        for (int x = 0; x <= 2; x++) {
-            for (int y = 0; y <= 2; y++) {
-                if (gameBlocks[y][x] != 0) {
-                    int posX = position(gameBlock.getX(), y);
-                    int posY = position(gameBlock.getY(), x);
-                    // If it is possible to hover, call the hover method of listener
-                    if (posX < getRowCount() && posY < getColumnCount() && posX >= 0 && posY >= 0) {
-                        hoverListener.hover(getBlock(posX, posY), event,
-                            grid.canPlayPiece(gamePiece, gameBlock.getX(), gameBlock.getY()));
-                    }
-                }
-            }
-        }
-    }
+    /*public void setCurrentBlock(GamePiece currentPiece, GameBlock currentBlock) {
+        this.currentBlock = currentBlock;
+        this.currentPiece = currentPiece;
+    }*/
 
     /**
-     * Calculate the x or y coordinate
-     * @param posGrid piece to hover
-     * @param posPiece block to hover
-     * @return coordinate
+     * Get the overlay the hovering piece is drawn on, laying it over the blocks the first time
+     * @return overlay
      */
-    private int position(int posGrid, int posPiece) {
-        return posGrid + posPiece - 1;
+    private HoverOverlay hoverOverlay() {
+        if (hoverOverlay == null) {
+            hoverOverlay = new HoverOverlay(grid, width, height);
+            add(hoverOverlay, 0, 0, cols, rows);
+        }
+        return hoverOverlay;
     }
 
     /**
@@ -321,26 +357,43 @@ public class GameBoard extends GridPane {
      * Fade out specified blocks
      * @param blockCoordinates set of coordinates for blocks to fade out
      */
+    @Override
     public void fadeOut(Set<GameBlockCoordinate> blockCoordinates) {
         logger.info("Fading out blocks");
-        // Call fade out method on each block in set
+        if (fades == null) {
+            fades = new FadeAnimator(cols * rows,
+                (cell, opacity) -> getBlock(cell % cols, cell / cols).setFade(opacity));
+        }
+        // Fade out each block in set, all on the one animator
         for (GameBlockCoordinate blockCoordinate : blockCoordinates) {
-            getBlock(blockCoordinate.getX(), blockCoordinate.getY()).fadeOut();
+            fades.fadeOut(blockCoordinate.getY() * cols + blockCoordinate.getX());
         }
     }
 
     /**
      * Handle hovering when any change is made to piece
      * @param gamePiece piece to hover
+     * @param rotation rotation of the piece
      * @param gameBlock block to hover
      */
-    public void pieceChanged(GamePiece gamePiece, GameBlock gameBlock) {
-        // Hide previous hover
-        hover(currentPiece, currentBlock, MouseEvent.MOUSE_EXITED);
+    public void pieceChanged(GamePiece gamePiece, int rotation, GameBlock gameBlock) {
         currentBlock = gameBlock;
         currentPiece = gamePiece;
-        // Show new hover
-        hover(gamePiece, gameBlock, MouseEvent.MOUSE_ENTERED);
+        currentRotation = rotation;
+        // Move the hover, which repaints only the overlay
+        hoverOverlay().show(gamePiece, rotation, gameBlock.getX(), gameBlock.getY());
+    }
+
+    /**
+     * Handle hovering when the piece or the cursor changes
+     * @param gamePiece piece to hover
+     * @param rotation rotation of the piece
+     * @param x column of the cursor
+     * @param y row of the cursor
+     */
+    @Override
+    public void pieceChanged(GamePiece gamePiece, int rotation, int x, int y) {
+        pieceChanged(gamePiece, rotation, getBlock(x, y));
     }
 
 }
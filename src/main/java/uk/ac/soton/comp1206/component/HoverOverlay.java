@@ -0,0 +1,280 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.BitSet;
+import javafx.scene.canvas.Canvas;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.ui.RenderStats;
+import uk.ac.soton.comp1206.ui.RepaintScheduler;
+
+/**
+ * The HoverOverlay shows the piece hovering at the cursor on a transparent canvas laid over a board. It only reads
+ * the Grid, so moving the mouse never writes to the game model, and the cells underneath are never repainted for it.
+ *
+ * Whether the piece can be placed is worked out once per anchor, piece and rotation, and again only when the grid
+ * moves on to a new version. Painting clears just the cells the hover covered before and waits for the next pulse,
+ * like the boards themselves. A board that zooms and pans tells the overlay its view, and the sprites are scaled to
+ * the zoomed cells.
+ */
+public class HoverOverlay extends Canvas {
+
+    /**
+     * The grid the piece hovers over
+     */
+    private final Grid grid;
+
+    /**
+     * Number of columns in the grid
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the grid
+     */
+    private final int rows;
+
+    /**
+     * The width of a cell when the board is not zoomed, which the sprites are rendered at
+     */
+    private final double baseCellWidth;
+
+    /**
+     * The height of a cell when the board is not zoomed, which the sprites are rendered at
+     */
+    private final double baseCellHeight;
+
+    /**
+     * The width of a cell in the view
+     */
+    private double cellWidth;
+
+    /**
+     * The height of a cell in the view
+     */
+    private double cellHeight;
+
+    /**
+     * The left of the view on the zoomed board, in pixels
+     */
+    private double viewX;
+
+    /**
+     * The top of the view on the zoomed board, in pixels
+     */
+    private double viewY;
+
+    /**
+     * Whether the whole canvas is to be cleared at the next paint, because the view changed
+     */
+    private boolean viewChanged;
+
+    /**
+     * The cells the hovering piece covers, by index y * cols + x
+     */
+    private final BitSet cells = new BitSet();
+
+    /**
+     * The cells painted on the canvas, by index y * cols + x
+     */
+    private final BitSet painted = new BitSet();
+
+    /**
+     * The hovering piece, or null if nothing is hovering
+     */
+    private GamePiece piece;
+
+    /**
+     * The rotation of the hovering piece
+     */
+    private int rotation;
+
+    /**
+     * Column of the anchor of the hovering piece
+     */
+    private int anchorX;
+
+    /**
+     * Row of the anchor of the hovering piece
+     */
+    private int anchorY;
+
+    /**
+     * The version of the grid the legality was worked out against
+     */
+    private long version = -1;
+
+    /**
+     * Whether the hovering piece can be placed
+     */
+    private boolean legal;
+
+    /**
+     * Whether a repaint is scheduled
+     */
+    private boolean dirty;
+
+    /**
+     * Paints the overlay, scheduled when it becomes dirty
+     */
+    private final Runnable render = this::render;
+
+    /**
+     * The sprites the hover is drawn from
+     */
+    private TileSprites sprites;
+
+    /**
+     * Create an overlay for a grid, the size of its board
+     * @param grid the grid the piece hovers over
+     * @param width the visual width of the board
+     * @param height the visual height of the board
+     */
+    public HoverOverlay(Grid grid, double width, double height) {
+        super(width, height);
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.baseCellWidth = width / cols;
+        this.baseCellHeight = height / rows;
+        this.cellWidth = baseCellWidth;
+        this.cellHeight = baseCellHeight;
+
+        // Let the mouse through to the board underneath
+        setMouseTransparent(true);
+
+        //Paint again once shown, at the output scale of the window
+        sceneProperty().addListener((observable, oldScene, newScene) -> {
+            viewChanged = true;
+            request();
+        });
+
+        //The legality of the hover depends on the grid
+        grid.addListener((changed, changedCells, clearedCells) -> {
+            if (piece != null) {
+                show(piece, rotation, anchorX, anchorY);
+            }
+        });
+    }
+
+    /**
+     * Show a piece hovering with its centre at a cell
+     * @param gamePiece piece to hover
+     * @param rotation rotation of the piece
+     * @param x column of the cursor
+     * @param y row of the cursor
+     */
+    public void show(GamePiece gamePiece, int rotation, int x, int y) {
+        boolean moved = gamePiece != piece || rotation != this.rotation || x != anchorX || y != anchorY;
+        if (!moved && version == grid.getVersion()) {
+            return;
+        }
+        piece = gamePiece;
+        this.rotation = rotation;
+        anchorX = x;
+        anchorY = y;
+        version = grid.getVersion();
+        legal = grid.canPlayPiece(gamePiece, rotation, x, y);
+
+        // Work out the cells under the piece
+        if (moved) {
+            cells.clear();
+            int[][] blocks = gamePiece.getBlocks(rotation);
+            for (int i = 0; i < blocks.length; i++) {
+                for (int j = 0; j < blocks[i].length; j++) {
+                    int cellX = x + i - 1;
+                    int cellY = y + j - 1;
+                    if (blocks[i][j] != 0 && cellX >= 0 && cellX < cols && cellY >= 0 && cellY < rows) {
+                        cells.set(cellY * cols + cellX);
+                    }
+                }
+            }
+        }
+        request();
+    }
+
+    /**
+     * Stop showing the hovering piece
+     */
+    public void hide() {
+        piece = null;
+        cells.clear();
+        request();
+    }
+
+    /**
+     * Follow the view of a board that zooms and pans
+     * @param viewX the left of the view on the zoomed board, in pixels
+     * @param viewY the top of the view on the zoomed board, in pixels
+     * @param cellWidth the width of a cell in the view
+     * @param cellHeight the height of a cell in the view
+     */
+    public void setView(double viewX, double viewY, double cellWidth, double cellHeight) {
+        if (viewX == this.viewX && viewY == this.viewY && cellWidth == this.cellWidth
+            && cellHeight == this.cellHeight) {
+            return;
+        }
+        this.viewX = viewX;
+        this.viewY = viewY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        viewChanged = true;
+        request();
+    }
+
+    /**
+     * Check whether the hovering piece can be placed where it is
+     * @return whether it can be placed
+     */
+    public boolean isLegal() {
+        return legal;
+    }
+
+    /**
+     * Request painting of the overlay, which happens once at the next pulse however many times it is requested
+     */
+    private void request() {
+        RenderStats.requested();
+        if (!dirty) {
+            dirty = true;
+            RepaintScheduler.schedule(this, render);
+        }
+    }
+
+    /**
+     * Clear the cells painted before and paint the cells under the hovering piece
+     */
+    private void render() {
+        dirty = false;
+        var gc = getGraphicsContext2D();
+        if (viewChanged) {
+            viewChanged = false;
+            gc.clearRect(0, 0, getWidth(), getHeight());
+        }
+        else {
+            for (int cell = painted.nextSetBit(0); cell >= 0; cell = painted.nextSetBit(cell + 1)) {
+                gc.clearRect(cell % cols * cellWidth - viewX, cell / cols * cellHeight - viewY, cellWidth, cellHeight);
+            }
+        }
+        for (int cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+            RenderStats.painted();
+            gc.drawImage(sprites().hover(legal), cell % cols * cellWidth - viewX, cell / cols * cellHeight - viewY,
+                cellWidth, cellHeight);
+        }
+        painted.clear();
+        painted.or(cells);
+    }
+
+    /**
+     * Get the sprites for the unzoomed size of the cells, fetching them again if the cache was invalidated or the
+     * output scale changed
+     * @return sprites
+     */
+    private TileSprites sprites() {
+        double scale = TileSprites.outputScale(this);
+        if (sprites == null || !sprites.isValid(scale)) {
+            sprites = TileSprites.get(baseCellWidth, baseCellHeight, scale);
+        }
+        return sprites;
+    }
+
+}
@@ -0,0 +1,215 @@
+package uk.ac.soton.comp1206.component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.ui.RenderStats;
+import uk.ac.soton.comp1206.ui.RepaintScheduler;
+
+/**
+ * The Minimap shows a whole grid at a glance, one small square of pixels per cell, for boards too big to see at once
+ * and for watching other players' boards.
+ *
+ * The pixels are written straight into the IntBuffer behind a WritableImage, with no shapes drawn at all. Cells that
+ * change are collected from every batch the grid publishes, and once per pulse the minimap writes just those cells and
+ * hands the image the rectangles they span, one per band of consecutive changed rows, so the image only uploads what
+ * changed since the grid version it last showed.
+ */
+public class Minimap extends ImageView {
+
+    /**
+     * Colour of an empty cell
+     */
+    private static final Color EMPTY = Color.rgb(51, 51, 51);
+
+    /**
+     * Premultiplied ARGB of each cell value
+     */
+    private static final int[] ARGB = new int[GameBlock.COLOURS.length];
+
+    static {
+        ARGB[0] = argb(EMPTY);
+        for (int value = 1; value < ARGB.length; value++) {
+            ARGB[value] = argb(GameBlock.COLOURS[value]);
+        }
+    }
+
+    /**
+     * The grid shown
+     */
+    private final Grid grid;
+
+    /**
+     * Number of columns in the grid
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the grid
+     */
+    private final int rows;
+
+    /**
+     * Size of a cell, in pixels
+     */
+    private final int cellSize;
+
+    /**
+     * Width of the image, in pixels
+     */
+    private final int width;
+
+    /**
+     * The pixels of the image
+     */
+    private final IntBuffer pixels;
+
+    /**
+     * The buffer the image is shown from
+     */
+    private final PixelBuffer<IntBuffer> buffer;
+
+    /**
+     * The cells changed since the version last shown, by index y * cols + x
+     */
+    private final BitSet changed = new BitSet();
+
+    /**
+     * The version of the grid last shown
+     */
+    private long shownVersion = -1;
+
+    /**
+     * Whether a repaint is scheduled
+     */
+    private boolean dirty;
+
+    /**
+     * Writes the changed cells, scheduled when the first cell changes
+     */
+    private final Runnable render = this::render;
+
+    /**
+     * Create a minimap of a grid
+     * @param grid grid to show
+     * @param cellSize size of a cell, in pixels
+     */
+    public Minimap(Grid grid, int cellSize) {
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.cellSize = cellSize;
+        this.width = cols * cellSize;
+        int height = rows * cellSize;
+
+        // Back the image with a buffer of our own
+        pixels = ByteBuffer.allocateDirect(width * height * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        buffer = new PixelBuffer<>(width, height, pixels, PixelFormat.getIntArgbPreInstance());
+        setImage(new WritableImage(buffer));
+
+        // Show the whole grid to start with
+        changed.set(0, cols * rows);
+        scheduleRender();
+
+        //Write the cells whenever the grid publishes changes
+        grid.addListener((source, changedCells, clearedCells) -> {
+            changed.or(changedCells);
+            scheduleRender();
+        });
+    }
+
+    /**
+     * Get the version of the grid the minimap last showed
+     * @return version
+     */
+    public long getShownVersion() {
+        return shownVersion;
+    }
+
+    /**
+     * Schedule writing the changed cells at the next pulse, unless it is scheduled already
+     */
+    private void scheduleRender() {
+        RenderStats.requested();
+        if (!dirty) {
+            dirty = true;
+            RepaintScheduler.schedule(this, render);
+        }
+    }
+
+    /**
+     * Write the changed cells into the buffer and tell the image which rectangles changed
+     */
+    private void render() {
+        dirty = false;
+        if (changed.isEmpty()) {
+            return;
+        }
+        int cell = changed.nextSetBit(0);
+        while (cell >= 0) {
+            // Gather a band of consecutive rows with changes, and the columns they span
+            int first = cell;
+            int firstRow = cell / cols;
+            int lastRow = firstRow;
+            int minCol = cols;
+            int maxCol = -1;
+            while (cell >= 0 && cell / cols <= lastRow + 1) {
+                lastRow = cell / cols;
+                minCol = Math.min(minCol, cell % cols);
+                maxCol = Math.max(maxCol, cell % cols);
+                cell = changed.nextSetBit(cell + 1);
+            }
+            // Write the band's cells while the image is told which rectangle changed
+            int end = cell < 0 ? cols * rows : cell;
+            var region = new Rectangle2D(minCol * cellSize, firstRow * cellSize, (maxCol - minCol + 1) * cellSize,
+                (lastRow - firstRow + 1) * cellSize);
+            buffer.updateBuffer(updated -> {
+                for (int i = changed.nextSetBit(first); i >= 0 && i < end; i = changed.nextSetBit(i + 1)) {
+                    writeCell(i % cols, i / cols);
+                }
+                return region;
+            });
+        }
+        changed.clear();
+        shownVersion = grid.getVersion();
+    }
+
+    /**
+     * Write the pixels of one cell
+     * @param x column
+     * @param y row
+     */
+    private void writeCell(int x, int y) {
+        RenderStats.painted();
+        int colour = ARGB[grid.get(x, y)];
+        int offset = y * cellSize * width + x * cellSize;
+        for (int row = 0; row < cellSize; row++) {
+            for (int col = 0; col < cellSize; col++) {
+                pixels.put(offset + row * width + col, colour);
+            }
+        }
+    }
+
+    /**
+     * Convert a colour to premultiplied ARGB
+     * @param colour colour
+     * @return premultiplied ARGB
+     */
+    private static int argb(Color colour) {
+        double alpha = colour.getOpacity();
+        int a = (int) Math.round(alpha * 255);
+        int r = (int) Math.round(colour.getRed() * alpha * 255);
+        int g = (int) Math.round(colour.getGreen() * alpha * 255);
+        int b = (int) Math.round(colour.getBlue() * alpha * 255);
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+}
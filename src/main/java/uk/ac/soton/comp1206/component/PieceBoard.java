@@ -1,27 +1,91 @@
 package uk.ac.soton.comp1206.component;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
 import uk.ac.soton.comp1206.game.GamePiece;
-import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.ui.RenderStats;
+import uk.ac.soton.comp1206.ui.RepaintScheduler;
 
 /**
  * A PieceBoard is a visual component to represent the visual GameBoard displaying a single piece.
+ *
+ * The blocks underneath only show the empty cells and take the clicks. The piece itself is drawn on a canvas laid
+ * over them from the cached thumbnail of the piece in its rotation, so showing another piece repaints nothing but
+ * that canvas, with a single image.
  */
 public class PieceBoard extends GameBoard {
 
   /**
-   * Create a new PieceBoard, based off a given grid, with a visual width and height.
-   * @param grid linked grid
+   * Colour of the circle marking the centre of the piece
+   */
+  private static final Color CENTRE = Color.rgb(204, 204, 204, 0.5);
+
+  /**
+   * Width of a cell
+   */
+  private final double cellWidth;
+
+  /**
+   * Height of a cell
+   */
+  private final double cellHeight;
+
+  /**
+   * The canvas the piece is drawn on
+   */
+  private final Canvas preview;
+
+  /**
+   * The piece shown, or null before the first
+   */
+  private GamePiece piece;
+
+  /**
+   * The rotation of the piece shown
+   */
+  private int rotation;
+
+  /**
+   * Whether a repaint is scheduled
+   */
+  private boolean dirty;
+
+  /**
+   * Paints the preview, scheduled when it becomes dirty
+   */
+  private final Runnable render = this::render;
+
+  /**
+   * Repaints the preview with new sprites when the sprite cache is dropped
+   */
+  private final InvalidationListener spritesListener = observable -> repaint();
+
+  /**
+   * The sprites the thumbnails come from
+   */
+  private TileSprites sprites;
+
+  /**
+   * Create a new PieceBoard of 3 x 3 cells, with a visual width and height.
    * @param width the visual width
    * @param height the visual height
    */
-  public PieceBoard(Grid grid, double width, double height) {
+  public PieceBoard(double width, double height) {
     super(3, 3, width, height);
+    this.cellWidth = width / 3;
+    this.cellHeight = height / 3;
 
-    //Build the PieceBoard
-    build();
+    // Lay the preview over the blocks, letting the clicks through to them
+    preview = new Canvas(width, height);
+    preview.setMouseTransparent(true);
+    add(preview, 0, 0, 3, 3);
 
-    // Draw a circle in the middle block of the board
-    getBlock(1, 1).paint();
+    // Paint again once shown, at the output scale of the window
+    preview.sceneProperty().addListener((observable, oldScene, newScene) -> repaint());
+    TileSprites.invalidationsProperty().addListener(new WeakInvalidationListener(spritesListener));
+    repaint();
 
     // Indicate that the board is a piece board
     mainBoard = false;
@@ -30,18 +94,54 @@ public class PieceBoard extends GameBoard {
   /**
    * Display the piece on the grid
    * @param gamePiece piece to display
+   * @param rotation rotation of the piece
+   */
+  public void displayPiece(GamePiece gamePiece, int rotation) {
+    if (gamePiece == piece && rotation == this.rotation) {
+      return;
+    }
+    piece = gamePiece;
+    this.rotation = rotation;
+    repaint();
+  }
+
+  /**
+   * Request painting of the preview, which happens once at the next pulse however many times it is requested
+   */
+  public void repaint() {
+    RenderStats.requested();
+    if (!dirty) {
+      dirty = true;
+      RepaintScheduler.schedule(preview, render);
+    }
+  }
+
+  /**
+   * Draw the thumbnail of the piece and the circle marking its centre
+   */
+  private void render() {
+    dirty = false;
+    RenderStats.painted();
+    var gc = preview.getGraphicsContext2D();
+    gc.clearRect(0, 0, preview.getWidth(), preview.getHeight());
+    if (piece != null) {
+      gc.drawImage(sprites().thumbnail(piece, rotation), 0, 0, preview.getWidth(), preview.getHeight());
+    }
+    gc.setFill(CENTRE);
+    gc.fillOval(cellWidth * 1.25, cellHeight * 1.25, cellWidth / 2, cellHeight / 2);
+  }
+
+  /**
+   * Get the sprites for the size of the cells, fetching them again if the cache was invalidated, the output scale
+   * changed or the render quality changed the shading
+   * @return sprites
    */
-  public void displayPiece(GamePiece gamePiece) {
-    // Get all blocks of the piece
-    var blocks = gamePiece.getBlocks();
-    // Draw each block on the grid
-    for (int x = 0; x <= 2; x++) {
-      for (int y = 0; y <= 2; y++) {
-        grid.set(x, y, blocks[x][y]);
-      }
+  private TileSprites sprites() {
+    double scale = TileSprites.outputScale(preview);
+    if (sprites == null || !sprites.isValid(scale)) {
+      sprites = TileSprites.get(cellWidth, cellHeight, scale);
     }
-    // Place the piece on the grid
-    grid.playPiece(gamePiece, 1, 1);
+    return sprites;
   }
 
 }
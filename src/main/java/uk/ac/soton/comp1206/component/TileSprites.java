@@ -0,0 +1,368 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.HashMap;
+import java.util.Map;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.ui.RenderQuality;
+
+/**
+ * TileSprites holds the look of every kind of cell pre-rendered into images for one cell size and output scale: the
+ * empty cell, a tile of each of the GameBlock colours, and the two hover colours. Painting a cell is then a single
+ * drawImage instead of several fills, strokes and polygons. Thumbnails of every piece in every rotation, 3 x 3 cells
+ * each, are rendered the first time they are asked for and kept with the sprites, so a piece preview is one drawImage
+ * as well.
+ *
+ * Sprites are shared by every board with the same cell size, and are rendered at the output scale of the screen so
+ * they stay sharp on high-density displays. The whole cache is dropped when the window is resized, and sprites of the
+ * other shading are no longer valid once the RenderQuality changes; components notice through isValid and fetch new
+ * sprites, and can follow the invalidations property to repaint when the cache is dropped. Only to be used on the
+ * JavaFX thread.
+ */
+public final class TileSprites {
+
+    /**
+     * Sprites by cell width, height and output scale
+     */
+    private static final Map<Key, TileSprites> CACHE = new HashMap<>();
+
+    /**
+     * Number of times the cache has been dropped
+     */
+    private static final ReadOnlyIntegerWrapper invalidations = new ReadOnlyIntegerWrapper();
+
+    /**
+     * Fill of an empty cell
+     */
+    static final Color EMPTY = Color.rgb(102, 102, 102, 0.5);
+
+    /**
+     * Fill of a hovering cell where the piece can be placed
+     */
+    static final Color HOVER_LEGAL = Color.rgb(0, 204, 0, 0.5);
+
+    /**
+     * Fill of a hovering cell where the piece cannot be placed
+     */
+    static final Color HOVER_ILLEGAL = Color.rgb(255, 0, 0, 0.5);
+
+    /**
+     * The empty cell (at index 0) and a tile of each colour, by value
+     */
+    private final Image[] tiles = new Image[GameBlock.COLOURS.length];
+
+    /**
+     * Hover where the piece can be placed
+     */
+    private final Image hoverLegal;
+
+    /**
+     * Hover where the piece cannot be placed
+     */
+    private final Image hoverIllegal;
+
+    /**
+     * Thumbnail of each piece in each rotation, by piece number * ROTATIONS + rotation, rendered when first needed
+     */
+    private final Image[] thumbnails = new Image[GamePiece.PIECES * GamePiece.ROTATIONS];
+
+    /**
+     * Width of a cell
+     */
+    private final double width;
+
+    /**
+     * Height of a cell
+     */
+    private final double height;
+
+    /**
+     * The output scale the sprites were rendered at
+     */
+    private final double scale;
+
+    /**
+     * Whether the tiles are shaded with a triangle
+     */
+    private final boolean shaded;
+
+    /**
+     * Whether these sprites are still in the cache
+     */
+    private boolean valid = true;
+
+    /**
+     * Render the sprites for a cell size
+     * @param width width of a cell
+     * @param height height of a cell
+     * @param scale output scale to render at
+     * @param shaded whether to shade the tiles
+     */
+    private TileSprites(double width, double height, double scale, boolean shaded) {
+        this.width = width;
+        this.height = height;
+        this.scale = scale;
+        this.shaded = shaded;
+        var canvas = new Canvas(width, height);
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(Transform.scale(scale, scale));
+        var gc = canvas.getGraphicsContext2D();
+
+        for (int value = 0; value < tiles.length; value++) {
+            gc.clearRect(0, 0, width, height);
+            paintTile(gc, value, 0, 0, width, height, shaded);
+            tiles[value] = canvas.snapshot(parameters, null);
+        }
+        gc.clearRect(0, 0, width, height);
+        paintFlat(gc, HOVER_LEGAL, 0, 0, width, height);
+        hoverLegal = canvas.snapshot(parameters, null);
+        gc.clearRect(0, 0, width, height);
+        paintFlat(gc, HOVER_ILLEGAL, 0, 0, width, height);
+        hoverIllegal = canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Get the sprites for a cell size at the output scale of the window a node is shown in
+     * @param node node the sprites will be drawn in
+     * @param width width of a cell
+     * @param height height of a cell
+     * @return sprites
+     */
+    public static TileSprites forNode(Node node, double width, double height) {
+        return get(width, height, outputScale(node));
+    }
+
+    /**
+     * Get the sprites for a cell size and output scale at the current render quality, rendering them if they are not
+     * cached
+     * @param width width of a cell
+     * @param height height of a cell
+     * @param scale output scale
+     * @return sprites
+     */
+    public static TileSprites get(double width, double height, double scale) {
+        boolean shaded = RenderQuality.get().shadesTiles();
+        return CACHE.computeIfAbsent(new Key(width, height, scale, shaded),
+            key -> new TileSprites(width, height, scale, shaded));
+    }
+
+    /**
+     * Drop every cached sprite, so they are rendered again when next needed
+     */
+    public static void invalidate() {
+        for (TileSprites sprites : CACHE.values()) {
+            sprites.valid = false;
+        }
+        CACHE.clear();
+        invalidations.set(invalidations.get() + 1);
+    }
+
+    /**
+     * Get the property counting the times the cache has been dropped, to repaint with new sprites when it is
+     * @return invalidations property
+     */
+    public static ReadOnlyIntegerProperty invalidationsProperty() {
+        return invalidations.getReadOnlyProperty();
+    }
+
+    /**
+     * Get the output scale of the window a node is shown in
+     * @param node node
+     * @return output scale, or 1 if the node is not in a window
+     */
+    public static double outputScale(Node node) {
+        if (node.getScene() == null) {
+            return 1;
+        }
+        Window window = node.getScene().getWindow();
+        return window == null ? 1 : Math.max(window.getOutputScaleX(), window.getOutputScaleY());
+    }
+
+    /**
+     * Check whether these sprites are still cached, and were rendered at the given output scale and the shading of the
+     * current render quality
+     * @param scale output scale the caller will draw at
+     * @return whether the sprites can still be used
+     */
+    public boolean isValid(double scale) {
+        return valid && this.scale == scale && shaded == RenderQuality.get().shadesTiles();
+    }
+
+    /**
+     * Get the sprite of a cell value
+     * @param value 0 for the empty cell, otherwise the colour of the tile
+     * @return sprite
+     */
+    public Image tile(int value) {
+        return tiles[value];
+    }
+
+    /**
+     * Get the sprite of a hovering cell
+     * @param legal whether the piece can be placed
+     * @return sprite
+     */
+    public Image hover(boolean legal) {
+        return legal ? hoverLegal : hoverIllegal;
+    }
+
+    /**
+     * Get the thumbnail of a piece: its tiles on a transparent 3 x 3 block of cells of this size
+     * @param piece piece to show
+     * @param rotation rotation of the piece
+     * @return thumbnail
+     */
+    public Image thumbnail(GamePiece piece, int rotation) {
+        int index = piece.getNumber() * GamePiece.ROTATIONS + rotation;
+        if (thumbnails[index] == null) {
+            thumbnails[index] = renderThumbnail(piece.getBlocks(rotation));
+        }
+        return thumbnails[index];
+    }
+
+    /**
+     * Render the thumbnail of a piece
+     * @param blocks blocks of the piece in its rotation
+     * @return thumbnail
+     */
+    private Image renderThumbnail(int[][] blocks) {
+        var canvas = new Canvas(blocks.length * width, blocks[0].length * height);
+        var gc = canvas.getGraphicsContext2D();
+        for (int x = 0; x < blocks.length; x++) {
+            for (int y = 0; y < blocks[x].length; y++) {
+                if (blocks[x][y] != 0) {
+                    paintTile(gc, blocks[x][y], x * width, y * height, width, height, shaded);
+                }
+            }
+        }
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(Transform.scale(scale, scale));
+        return canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Paint a cell value directly: the empty cell, or a tile with a brighter (or, for colours that cannot get
+     * brighter, darker) triangle
+     * @param gc graphics context to paint on
+     * @param value 0 for the empty cell, otherwise the colour of the tile
+     * @param x left of the cell
+     * @param y top of the cell
+     * @param width width of the cell
+     * @param height height of the cell
+     * @param shaded whether to shade the tile with a triangle
+     */
+    static void paintTile(GraphicsContext gc, int value, double x, double y, double width, double height,
+                          boolean shaded) {
+        if (value == 0) {
+            paintFlat(gc, EMPTY, x, y, width, height);
+            return;
+        }
+        Color colour = GameBlock.COLOURS[value];
+        gc.setFill(colour);
+        gc.fillRect(x, y, width, height);
+        gc.setStroke(Color.BLACK);
+        gc.strokeRect(x, y, width, height);
+        if (!shaded) {
+            return;
+        }
+        Color brighter = colour.brighter();
+        if (!brighter.equals(colour)) {
+            gc.setFill(brighter);
+            gc.fillPolygon(new double[] {x, x, x + width}, new double[] {y, y + height, y + height}, 3);
+        }
+        else {
+            gc.setFill(colour.darker());
+            gc.fillPolygon(new double[] {x, x + width, x + width}, new double[] {y, y, y + height}, 3);
+        }
+    }
+
+    /**
+     * Paint a cell in a flat colour with a black border
+     * @param gc graphics context to paint on
+     * @param colour fill colour
+     * @param x left of the cell
+     * @param y top of the cell
+     * @param width width of the cell
+     * @param height height of the cell
+     */
+    static void paintFlat(GraphicsContext gc, Color colour, double x, double y, double width, double height) {
+        gc.setFill(colour);
+        gc.fillRect(x, y, width, height);
+        gc.setStroke(Color.BLACK);
+        gc.strokeRect(x, y, width, height);
+    }
+
+    /**
+     * The key of a set of sprites in the cache
+     */
+    private static final class Key {
+
+        /**
+         * Width of a cell
+         */
+        private final double width;
+
+        /**
+         * Height of a cell
+         */
+        private final double height;
+
+        /**
+         * Output scale
+         */
+        private final double scale;
+
+        /**
+         * Whether the tiles are shaded
+         */
+        private final boolean shaded;
+
+        /**
+         * Create a key
+         * @param width width of a cell
+         * @param height height of a cell
+         * @param scale output scale
+         * @param shaded whether the tiles are shaded
+         */
+        private Key(double width, double height, double scale, boolean shaded) {
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+            this.shaded = shaded;
+        }
+
+        /**
+         * Check whether another key is for the same sprites
+         * @param other other key
+         * @return whether they are equal
+         */
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.width == width && key.height == height && key.scale == scale
+                && key.shaded == shaded;
+        }
+
+        /**
+         * Get the hash code of this key
+         * @return hash code
+         */
+        @Override
+        public int hashCode() {
+            return ((Double.hashCode(width) * 31 + Double.hashCode(height)) * 31 + Double.hashCode(scale)) * 31
+                + Boolean.hashCode(shaded);
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.WeakChangeListener;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.ui.ActivityManager;
+
+/**
+ * The TimerBar is the frame around the board that shows how long is left before the game times out, turning from
+ * green to red as the time runs down.
+ *
+ * One AnimationTimer runs for the whole game and reads the deadline the game publishes every frame, so the bar is
+ * always in step with the real timeout and a new loop needs no new animation: the game just moves its deadline on.
+ * The colours are worked out once up front and the stroke is only set when the shade changes. The timer stops while
+ * the window is minimised and picks the deadline up again when it comes back.
+ */
+public class TimerBar extends Rectangle {
+
+    /**
+     * Number of shades between green and red
+     */
+    private static final int SHADES = 64;
+
+    /**
+     * The shades from full time left (green, at 0) to none (red)
+     */
+    private static final Color[] PALETTE = new Color[SHADES];
+
+    static {
+        for (int shade = 0; shade < SHADES; shade++) {
+            PALETTE[shade] = Color.rgb(0, 204, 0).interpolate(Color.rgb(255, 0, 0), shade / (double) (SHADES - 1));
+        }
+    }
+
+    /**
+     * The game whose timer is shown, or null when stopped
+     */
+    private Game game;
+
+    /**
+     * The shade shown, or -1 before the first frame
+     */
+    private int shade = -1;
+
+    /**
+     * Updates the colour every frame while a game is shown
+     */
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            update();
+        }
+    };
+
+    /**
+     * Stops the timer while the window is minimised and starts it again after
+     */
+    private final ChangeListener<Boolean> showingListener = (observable, wasShowing, showing) -> followShowing();
+
+    /**
+     * Create a timer bar
+     * @param width width of the frame
+     * @param height height of the frame
+     */
+    public TimerBar(double width, double height) {
+        super(width, height);
+        setStroke(PALETTE[0]);
+        ActivityManager.showingProperty().addListener(new WeakChangeListener<>(showingListener));
+    }
+
+    /**
+     * Start showing the timer of a game
+     * @param game game to show
+     */
+    public void start(Game game) {
+        this.game = game;
+        shade = -1;
+        followShowing();
+    }
+
+    /**
+     * Stop showing the timer
+     */
+    public void stop() {
+        timer.stop();
+        game = null;
+    }
+
+    /**
+     * Run the timer while a game is shown and the window is not minimised
+     */
+    private void followShowing() {
+        if (game != null && ActivityManager.isShowing()) {
+            timer.start();
+        }
+        else {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Set the colour from the time left in the game's current loop
+     */
+    private void update() {
+        // Measure on the clock the game schedules its timeout by
+        double remaining = game.getLoopRemaining(System.nanoTime());
+        int next = (int) Math.round((1 - remaining) * (SHADES - 1));
+        if (next != shade) {
+            shade = next;
+            setStroke(PALETTE[shade]);
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Fade listener is used to handle the opacity of a fading cell changing. It passes the index of the cell and its
+ * new opacity, which reaches 0 when the fade is over.
+ */
+public interface FadeListener {
+
+    /**
+     * Handle a fade changed event
+     * @param cell index of the cell, y * cols + x
+     * @param opacity opacity of the fade, from 1 down to 0
+     */
+    public void fadeChanged(int cell, double opacity);
+
+}
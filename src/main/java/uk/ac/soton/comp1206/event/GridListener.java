@@ -0,0 +1,21 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.BitSet;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * The Grid listener is used to handle the event when a batch of changes to a Grid is published or committed. It passes
+ * the grid, the set of cells whose value changed, so only those need to be read back, and the set of cells that were
+ * cleared as part of a full line.
+ */
+public interface GridListener {
+
+  /**
+   * Handle a grid changed event
+   * @param grid the grid that changed
+   * @param changedCells the changed cells, by index y * cols + x. Only valid during the call
+   * @param clearedCells the cleared cells, by index y * cols + x. Only valid during the call
+   */
+  public void gridChanged(Grid grid, BitSet changedCells, BitSet clearedCells);
+
+}
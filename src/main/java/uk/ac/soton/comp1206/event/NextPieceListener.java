@@ -11,8 +11,10 @@ public interface NextPieceListener {
   /**
    * Handle a next piece event
    * @param currentPiece the piece currently being played
+   * @param currentRotation the rotation of the current piece
    * @param followingPiece the piece that will be played after the current piece
+   * @param followingRotation the rotation of the following piece
    */
-  public void nextPiece(GamePiece currentPiece, GamePiece followingPiece);
+  public void nextPiece(GamePiece currentPiece, int currentRotation, GamePiece followingPiece, int followingRotation);
 
 }
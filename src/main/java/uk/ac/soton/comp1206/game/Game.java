@@ -1,13 +1,11 @@
 package uk.ac.soton.comp1206.game;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Random;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
-import javafx.application.Platform;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
@@ -22,6 +20,10 @@ import uk.ac.soton.comp1206.ui.Multimedia;
 /**
  * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
  * and to handle actions made by the player are taking place inside this class.
+ *
+ * The timer of the game runs on a GameHost, which can be shared by many games. A game has no sound unless it is given
+ * a Multimedia, so games can also be run without any user interface. The deadline of the current loop is published
+ * for the interface to show how much time is left.
  */
 public class Game {
 
@@ -35,11 +37,26 @@ public class Game {
      */
     protected GamePiece currentPiece;
 
+    /**
+     * The rotation of the current piece, from 0 to 3
+     */
+    protected int currentRotation;
+
     /**
      * The piece that will be played after the current piece
      */
     protected GamePiece followingPiece;
 
+    /**
+     * The rotation of the following piece, from 0 to 3
+     */
+    protected int followingRotation;
+
+    /**
+     * The random source for spawning pieces
+     */
+    private final Random random = new Random();
+
     /**
      * The listener to call when a piece is played
      */
@@ -70,6 +87,11 @@ public class Game {
      */
     protected final Grid grid;
 
+    /**
+     * Finds the full lines of the grid, picked for the size of the board
+     */
+    private final LineDetector lineDetector;
+
     /**
      * The property to store the score
      */
@@ -91,22 +113,59 @@ public class Game {
     private IntegerProperty multiplier;
 
     /**
-     * The timer of the game
+     * The host running the timer of the game
+     */
+    private final GameHost host;
+
+    /**
+     * The player of the sounds of the game, or null for no sound
      */
-    private Timer loopTimer;
+    private Multimedia multimedia;
 
+    /**
+     * The pending timeout of the current loop of the game, or null before the game has started
+     */
+    private ScheduledFuture<?> loopTimer;
 
     /**
-     * Create a new game with the specified rows and columns. Creates a corresponding grid model.
+     * The System.nanoTime at which the current loop times out
+     */
+    private long loopDeadline;
+
+    /**
+     * The length of the current loop in nanoseconds, or 0 if the timer is not running
+     */
+    private long loopLength;
+
+    /**
+     * Number of the current loop, so a timeout that was already queued when its loop ended is ignored
+     */
+    private long loopNumber;
+
+    /**
+     * Create a new game with the specified rows and columns, run by the default host. Creates a corresponding grid
+     * model.
      * @param cols number of columns
      * @param rows number of rows
      */
     public Game(int cols, int rows) {
+        this(cols, rows, GameHost.getDefault());
+    }
+
+    /**
+     * Create a new game with the specified rows and columns, run by the given host. Creates a corresponding grid model.
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param host host to run the timer of the game on
+     */
+    public Game(int cols, int rows, GameHost host) {
         this.cols = cols;
         this.rows = rows;
+        this.host = host;
 
         //Create a new grid model to represent the game state
         this.grid = new Grid(cols,rows);
+        this.lineDetector = LineDetector.forSize(cols, rows);
 
         // Set the initial current piece
         currentPiece = spawnPiece();
@@ -135,7 +194,7 @@ public class Game {
      */
     public void initialiseGame() {
         logger.info("Initialising game");
-        Multimedia.playMusicFile("game_start.wav");
+        playMusic("game_start.wav");
     }
 
     /**
@@ -143,34 +202,70 @@ public class Game {
      * @param gameBlock the block that was clicked
      */
     public void blockClicked(GameBlock gameBlock) {
-        //Get the position of this block
-        int x = gameBlock.getX();
-        int y = gameBlock.getY();
+        playPiece(gameBlock.getX(), gameBlock.getY());
+    }
 
+    /**
+     * Play the current piece at the given position, if it fits
+     * @param x column
+     * @param y row
+     * @return whether the piece was played
+     */
+    public synchronized boolean playPiece(int x, int y) {
         // Place the current piece if it can be played
-        if (grid.canPlayPiece(currentPiece, x, y)) {
+        if (grid.canPlayPiece(currentPiece, currentRotation, x, y)) {
 
-            // Place current piece and handle logic that has to be done after playing it
-            grid.playPiece(currentPiece, x, y);
-            afterPiece();
+            // Place current piece and handle logic that has to be done after playing it, as one grid transaction
+            grid.begin();
+            try {
+                grid.playPiece(currentPiece, currentRotation, x, y);
+                afterPiece();
+            }
+            finally {
+                // Put the grid back if the move failed part way, so the next move can open its own transaction
+                if (grid.isInTransaction()) {
+                    grid.rollback();
+                }
+            }
             nextPiece();
 
             // Start a new loop in timer
             if (loopTimer != null) {
-                loopTimer.cancel();
+                loopTimer.cancel(false);
             }
-            gameLoopListener.gameLoop(getTimerDelay());
-            loopTimer = new Timer();
-            loopTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    gameLoop();
-                }
-            }, getTimerDelay());
-            Multimedia.playAudioFile("place.wav");
+            scheduleLoop();
+            playAudio("place.wav");
+            return true;
         }
-        else {
-            Multimedia.playAudioFile("fail.wav");
+        playAudio("fail.wav");
+        return false;
+    }
+
+    /**
+     * Set the player of the sounds of the game
+     * @param multimedia player to use, or null for no sound
+     */
+    public void setMultimedia(Multimedia multimedia) {
+        this.multimedia = multimedia;
+    }
+
+    /**
+     * Play an audio, if the game has sound
+     * @param fileName name of the file to play
+     */
+    protected void playAudio(String fileName) {
+        if (multimedia != null) {
+            multimedia.playAudioFile(fileName);
+        }
+    }
+
+    /**
+     * Play music, if the game has sound
+     * @param fileName name of the file to play
+     */
+    protected void playMusic(String fileName) {
+        if (multimedia != null) {
+            multimedia.playMusicFile(fileName);
         }
     }
 
@@ -203,7 +298,7 @@ public class Game {
      * @return piece
      */
     public GamePiece spawnPiece() {
-        return GamePiece.createPiece(new Random().nextInt(15));
+        return GamePiece.createPiece(random.nextInt(GamePiece.PIECES));
     }
 
     /**
@@ -212,69 +307,54 @@ public class Game {
     public void nextPiece() {
         logger.info("Loading next piece");
         currentPiece = followingPiece;
+        currentRotation = followingRotation;
         followingPiece = spawnPiece();
-        nextPieceListener.nextPiece(currentPiece, followingPiece);
+        followingRotation = 0;
+        if (nextPieceListener != null) {
+            nextPieceListener.nextPiece(currentPiece, currentRotation, followingPiece, followingRotation);
+        }
     }
 
     /**
-     * Perform actions after a piece has been played
+     * Perform actions after a piece has been played. Must be called inside the grid transaction the piece was placed
+     * in, which is committed here together with the cleared lines once the score and level are updated.
      */
     public void afterPiece() {
-        // Create lists and set to store cleared lines and blocks
-        List<Integer> rowsToClear = new ArrayList<>();
-        List<Integer> columnsToClear = new ArrayList<>();
-        Set<Integer> toClear = new HashSet<>();
-
-        // Identify rows that have to be cleared
-        for (int y = 0; y < rows; y++) {
-            boolean full = true;
+        // Identify rows and columns that have to be cleared
+        BitSet rowsToClear = new BitSet(rows);
+        BitSet columnsToClear = new BitSet(cols);
+        lineDetector.findFullRows(grid.getCells(), cols, rows, rowsToClear);
+        lineDetector.findFullColumns(grid.getCells(), cols, rows, columnsToClear);
+        int lines = rowsToClear.cardinality() + columnsToClear.cardinality();
+
+        // Clear and fade out blocks that have to be cleared
+        Set<GameBlockCoordinate> blockCoordinates = new HashSet<>();
+        for (int y = rowsToClear.nextSetBit(0); y >= 0; y = rowsToClear.nextSetBit(y + 1)) {
             for (int x = 0; x < cols; x++) {
-                if (grid.get(x, y) == 0) {
-                    full = false;
-                    break;
-                }
-            }
-            if (full) {
-                for (int k = 0; k < cols; k++) {
-                    toClear.add(5 * y + k);
-                }
-                rowsToClear.add(y);
+                grid.clear(x, y);
+                blockCoordinates.add(new GameBlockCoordinate(x, y));
             }
         }
-
-        // Identify columns that have to be cleared
-        for (int x = 0; x < cols; x++) {
-            boolean full = true;
+        for (int x = columnsToClear.nextSetBit(0); x >= 0; x = columnsToClear.nextSetBit(x + 1)) {
             for (int y = 0; y < rows; y++) {
-                if (grid.get(x, y) == 0) {
-                    full = false;
-                    break;
-                }
-            }
-            if (full) {
-                for (int k = 0; k < rows; k++) {
-                    toClear.add(cols * k + x);
-                }
-                columnsToClear.add(x);
+                grid.clear(x, y);
+                blockCoordinates.add(new GameBlockCoordinate(x, y));
             }
         }
-
-        // Clear and fade out blocks that have to be cleared
-        Set<GameBlockCoordinate> blockCoordinates = new HashSet<>();
-        for (int position : toClear) {
-            int x = position % cols;
-            int y = position / cols;
-            grid.set(x, y, 0);
-            blockCoordinates.add(new GameBlockCoordinate(x, y));
-        }
-        lineClearedListener.fadeOut(blockCoordinates);
-
         // Set the new score and level
-        score(rowsToClear.size() + columnsToClear.size(), toClear.size());
-        int newLevel = score.get() / 1000;
+        score(lines, blockCoordinates.size());
+        int newLevel = levelFor(score.get());
         if (newLevel > level.get()) {
             level.set(newLevel);
         }
+
+        // Commit the placement and the cleared lines together, so observers only see the final grid and score
+        grid.commit();
+
+        // Fade out the cleared blocks
+        if (lineClearedListener != null) {
+            lineClearedListener.fadeOut(blockCoordinates);
+        }
     }
 
     /**
@@ -315,7 +395,7 @@ public class Game {
      * @param blocks number of blocks cleared
      */
     public void score(int lines, int blocks) {
-        score.set(score.get() + lines * blocks * 10 * multiplier.get());
+        score.set(score.get() + scoreFor(lines, blocks, multiplier.get()));
         // Set multiplier to 1 if no lines have been cleared
         if (lines == 0) {
             multiplier.set(1);
@@ -330,16 +410,11 @@ public class Game {
      * Rotate the current piece being played
      * @param left indicates whether to rotate the piece left or right
      */
-    public void rotateCurrentPiece(boolean left) {
+    public synchronized void rotateCurrentPiece(boolean left) {
         logger.info("Rotating current piece");
-        // Rotate current piece
-        currentPiece.rotate();
-        // Rotate current piece twice more if it is a left rotation
-        if (left) {
-            currentPiece.rotate();
-            currentPiece.rotate();
-        }
-        Multimedia.playAudioFile("rotate.wav");
+        // Rotate current piece, a left rotation being three right rotations
+        currentRotation = (currentRotation + (left ? 3 : 1)) % GamePiece.ROTATIONS;
+        playAudio("rotate.wav");
 
     }
 
@@ -349,21 +424,26 @@ public class Game {
      */
     public void setNextPieceListener(NextPieceListener nextPieceListener) {
         this.nextPieceListener = nextPieceListener;
-        this.nextPieceListener.nextPiece(currentPiece, followingPiece);
+        this.nextPieceListener.nextPiece(currentPiece, currentRotation, followingPiece, followingRotation);
     }
 
     /**
      * Swap the current piece with the following piece
      */
-    public void swapCurrentPiece() {
+    public synchronized void swapCurrentPiece() {
         logger.info("Swapping current piece");
-        // Call the listener nextPiece method
-        nextPieceListener.nextPiece(followingPiece, currentPiece);
         // Swap values of current and following piece
         GamePiece tempPiece = currentPiece;
         currentPiece = followingPiece;
         followingPiece = tempPiece;
-        Multimedia.playAudioFile("transition.wav");
+        int tempRotation = currentRotation;
+        currentRotation = followingRotation;
+        followingRotation = tempRotation;
+        // Call the listener nextPiece method
+        if (nextPieceListener != null) {
+            nextPieceListener.nextPiece(currentPiece, currentRotation, followingPiece, followingRotation);
+        }
+        playAudio("transition.wav");
     }
 
     /**
@@ -374,6 +454,14 @@ public class Game {
         return currentPiece;
     }
 
+    /**
+     * Get the rotation of the current piece being played
+     * @return rotation, from 0 to 3
+     */
+    public int getCurrentRotation() {
+        return currentRotation;
+    }
+
     /**
      * Get the piece that is following after the current piece
      * @return follownig piece
@@ -382,6 +470,14 @@ public class Game {
         return followingPiece;
     }
 
+    /**
+     * Get the rotation of the piece that is following after the current piece
+     * @return rotation, from 0 to 3
+     */
+    public int getFollowingRotation() {
+        return followingRotation;
+    }
+
     /**
      * Set the listener to handle an event when a line is cleared
      * @param lineClearedListener listener to add
@@ -391,29 +487,41 @@ public class Game {
     }
 
     /**
-     * Hover a block over the board
-     * @param gameBlock the gameblock to hover
-     * @param event indicates whether to hover a block or stop hovering it
-     * @param green indicates whether to color the block to green or red
+     * Calculate delay for the timer of the game
+     * @return delay
      */
-    public void hover(GameBlock gameBlock, String event, boolean green) {
-        // Show hover
-        if (event.equals("show")) {
-            gameBlock.hover(green);
-        }
-        // Quit hover
-        else {
-            gameBlock.quitHover();
-        }
+    public int getTimerDelay() {
+        return timerDelayFor(level.get());
     }
 
     /**
-     * Calculate delay for the timer of the game
-     * @return delay
+     * Calculate the points for clearing lines. Shared with the headless Simulation.
+     * @param lines number of lines cleared
+     * @param blocks number of blocks cleared
+     * @param multiplier the current multiplier
+     * @return points scored
      */
-    public int getTimerDelay() {
+    public static int scoreFor(int lines, int blocks, int multiplier) {
+        return lines * blocks * 10 * multiplier;
+    }
+
+    /**
+     * Calculate the level reached with a score. Shared with the headless Simulation.
+     * @param score the score
+     * @return level
+     */
+    public static int levelFor(int score) {
+        return score / 1000;
+    }
+
+    /**
+     * Calculate delay for the timer of the game at a level. Shared with the headless Simulation.
+     * @param level the level
+     * @return delay in milliseconds
+     */
+    public static int timerDelayFor(int level) {
         // Decrease delay depending on the level
-        int delay = 12000 - 500 * level.get();
+        int delay = 12000 - 500 * level;
         // Cannot be decreased lower than 2500
         if (delay <= 2500) {
             return 2500;
@@ -422,37 +530,73 @@ public class Game {
     }
 
     /**
-     * Make the player lose a life every time a certain time has passed
+     * Make the player lose a life every time a certain time has passed. Runs on the user interface of the host, like
+     * every other change to the game that the scene listens to.
      */
-    public void gameLoop() {
+    public synchronized void gameLoop() {
         // Handle if timer delay goes out
         if (loopTimer != null) {
-            loopTimer.cancel();
-            Platform.runLater(new Runnable() {
-                @Override
-                public void run() {
-                    // Decrement lives
-                    lives.set(lives.get() - 1);
-                    // Set multiplier to 1
-                    multiplier.set(1);
-                }
-            });
+            loopTimer.cancel(false);
+            // Decrement lives
+            lives.set(lives.get() - 1);
+            // Set multiplier to 1
+            multiplier.set(1);
             nextPiece();
         }
         // Continue looping
-        gameLoopListener.gameLoop(getTimerDelay());
-        loopTimer = new Timer();
-        loopTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    gameLoop();
-                }
-                catch (Exception e) {
-                    logger.error("timer already cancelled");
-                }
-            }
-        }, getTimerDelay());
+        scheduleLoop();
+    }
+
+    /**
+     * Tell the listener a new loop has started and schedule its timeout on the host
+     */
+    private void scheduleLoop() {
+        int delay = getTimerDelay();
+        if (gameLoopListener != null) {
+            gameLoopListener.gameLoop(delay);
+        }
+        // Publish the deadline the timeout is scheduled for
+        loopLength = TimeUnit.MILLISECONDS.toNanos(delay);
+        loopDeadline = System.nanoTime() + loopLength;
+        long loop = ++loopNumber;
+        // Time out on the user interface, as the listeners repaint the boards
+        loopTimer = host.schedule(() -> host.runLater(() -> timedOut(loop)), delay);
+    }
+
+    /**
+     * Handle the timeout of a loop, unless the loop ended or the timer was stopped while the timeout was queued
+     * @param loop number of the loop that timed out
+     */
+    private synchronized void timedOut(long loop) {
+        if (loop != loopNumber) {
+            return;
+        }
+        try {
+            gameLoop();
+        }
+        catch (Exception e) {
+            logger.error("Game loop failed", e);
+        }
+    }
+
+    /**
+     * Get the System.nanoTime at which the current loop times out
+     * @return deadline
+     */
+    public synchronized long getLoopDeadline() {
+        return loopDeadline;
+    }
+
+    /**
+     * Get how much of the current loop is left at a time
+     * @param now the System.nanoTime to measure at
+     * @return fraction of the loop left, from 1 when it starts down to 0 when it times out or the timer is stopped
+     */
+    public synchronized double getLoopRemaining(long now) {
+        if (loopLength == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, (loopDeadline - now) / (double) loopLength));
     }
 
     /**
@@ -470,7 +614,11 @@ public class Game {
     /**
      * Stop the timer of the game
      */
-    public void cancelLoopTimer() {
-        loopTimer.cancel();
+    public synchronized void cancelLoopTimer() {
+        if (loopTimer != null) {
+            loopTimer.cancel(false);
+        }
+        loopLength = 0;
+        loopNumber++;
     }
 }
@@ -0,0 +1,114 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.UiQueue;
+
+/**
+ * The GameHost runs the timers of any number of games on one shared pool of threads, instead of every game starting
+ * a thread of its own. It also decides where work that has to happen on the user interface is run.
+ *
+ * The default host has a single thread and hands user interface work to the JavaFX application thread. A headless host
+ * (for example for a bot farm) can use a thread per core and run that work straight away.
+ */
+public class GameHost {
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(GameHost.class);
+
+    /**
+     * The host used by games that are not given one
+     */
+    private static GameHost defaultHost;
+
+    /**
+     * The pool running the timers of every game on this host
+     */
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Where user interface work is run
+     */
+    private final Executor uiExecutor;
+
+    /**
+     * Create a new host
+     * @param threads number of threads to run the timers on
+     * @param uiExecutor where user interface work is run
+     */
+    public GameHost(int threads, Executor uiExecutor) {
+        this.uiExecutor = uiExecutor;
+
+        // Name the threads after the host, and never keep the application alive just for them
+        var count = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            var thread = new Thread(runnable, "game-host-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Game timers are cancelled on every move, so do not keep the cancelled ones queued until they are due
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Create a headless host with a thread per core, which runs user interface work straight away
+     * @return host
+     */
+    public static GameHost headless() {
+        return new GameHost(Runtime.getRuntime().availableProcessors(), Runnable::run);
+    }
+
+    /**
+     * Get the host used by games that are not given one, which runs user interface work on the JavaFX thread
+     * @return default host
+     */
+    public static synchronized GameHost getDefault() {
+        if (defaultHost == null) {
+            logger.info("Creating default game host");
+            defaultHost = new GameHost(1, UiQueue::runLater);
+        }
+        return defaultHost;
+    }
+
+    /**
+     * Run a task once after a delay
+     * @param task task to run
+     * @param milliseconds delay in milliseconds
+     * @return handle to cancel the task with
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long milliseconds) {
+        return scheduler.schedule(task, milliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a task on the user interface
+     * @param task task to run
+     */
+    public void runLater(Runnable task) {
+        uiExecutor.execute(task);
+    }
+
+    /**
+     * Get the scheduler of this host, for other work that should share its threads
+     * @return scheduler
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Stop every timer of this host
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+}
@@ -5,8 +5,12 @@ package uk.ac.soton.comp1206.game;
  *
  * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as specified by it's
  * number.
+ *
+ * GamePieces are immutable and there is exactly one instance per shape, so they can be shared freely and compared by
+ * identity. The block makeup of all four rotations is worked out once up front; the rotation a piece is being played
+ * in is held by the game, not by the piece.
  */
-public class GamePiece {
+public final class GamePiece {
 
     /**
      * The total number of pieces in this game
@@ -14,9 +18,25 @@ public class GamePiece {
     public static final int PIECES = 15;
 
     /**
-     * The 2D grid representation of the shape of this piece
+     * The number of distinct rotations of a piece
      */
-    private int[][] blocks;
+    public static final int ROTATIONS = 4;
+
+    /**
+     * The single shared instance of every piece, indexed by piece number
+     */
+    private static final GamePiece[] FLYWEIGHTS = new GamePiece[PIECES];
+
+    static {
+        for (int piece = 0; piece < PIECES; piece++) {
+            FLYWEIGHTS[piece] = definePiece(piece);
+        }
+    }
+
+    /**
+     * The 2D grid representation of the shape of this piece, for each rotation
+     */
+    private final int[][][] rotations;
 
     /**
      * The value of this piece
@@ -29,11 +49,24 @@ public class GamePiece {
     private final String name;
 
     /**
-     * Create a new GamePiece of the specified piece number
+     * Get the GamePiece of the specified piece number. The same instance is returned every time.
      * @param piece piece number
-     * @return the created GamePiece
+     * @return the GamePiece
      */
     public static GamePiece createPiece(int piece) {
+        //Not a valid piece number
+        if (piece < 0 || piece >= PIECES) {
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
+        }
+        return FLYWEIGHTS[piece];
+    }
+
+    /**
+     * Define the shape of the specified piece number
+     * @param piece piece number
+     * @return the created GamePiece
+     */
+    private static GamePiece definePiece(int piece) {
         switch (piece) {
             //Line
             case 0 -> {
@@ -130,19 +163,6 @@ public class GamePiece {
         throw new IndexOutOfBoundsException("No such piece: " + piece);
     }
 
-    /**
-     * Create a new GamePiece of the specified piece number and rotation
-     * @param piece piece number
-     * @param rotation number of times to rotate
-     * @return the created GamePiece
-     */
-    public static GamePiece createPiece(int piece, int rotation) {
-        var newPiece = createPiece(piece);
-
-        newPiece.rotate(rotation);
-        return newPiece;
-    }
-
     /**
      * Create a new GamePiece with the given name, block makeup and value. Should not be called directly, only via the
      * factory.
@@ -152,16 +172,23 @@ public class GamePiece {
      */
     private GamePiece(String name, int[][] blocks, int value) {
         this.name = name;
-        this.blocks = blocks;
         this.value = value;
 
         //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
+        int[][] shape = new int[3][3];
         for(int x = 0; x < blocks.length; x++) {
             for (int y = 0; y < blocks[x].length; y++) {
                 if(blocks[x][y] == 0) continue;
-                blocks[x][y] = value;
+                shape[x][y] = value;
             }
         }
+
+        //Work out every rotation from the one before
+        rotations = new int[ROTATIONS][][];
+        rotations[0] = shape;
+        for (int rotation = 1; rotation < ROTATIONS; rotation++) {
+            rotations[rotation] = rotate(rotations[rotation - 1]);
+        }
     }
 
     /**
@@ -173,27 +200,36 @@ public class GamePiece {
     }
 
     /**
-     * Get the block makeup of this piece
-     * @return 2D grid of the blocks representing the piece shape
+     * Get the block makeup of this piece in its original rotation
+     * @return 2D grid of the blocks representing the piece shape. Shared, must not be modified
      */
     public int[][] getBlocks() {
-        return blocks;
+        return rotations[0];
     }
 
     /**
-     * Rotate this piece the given number of rotations
-     * @param rotations number of rotations
+     * Get the block makeup of this piece in the given rotation
+     * @param rotation number of clockwise rotations, from 0 to 3
+     * @return 2D grid of the blocks representing the piece shape. Shared, must not be modified
      */
-    public void rotate(int rotations) {
-        for(int rotated = 0; rotated < rotations; rotated ++) {
-            rotate();
-        }
+    public int[][] getBlocks(int rotation) {
+        return rotations[rotation];
+    }
+
+    /**
+     * Get the piece number of this piece
+     * @return piece number
+     */
+    public int getNumber() {
+        return value - 1;
     }
 
     /**
-     * Rotate this piece exactly once by rotating it's 3x3 grid
+     * Work out the rotation of a 3x3 grid by one step
+     * @param blocks the grid to rotate
+     * @return the rotated grid
      */
-    public void rotate() {
+    private static int[][] rotate(int[][] blocks) {
         int[][] rotated = new int[blocks.length][blocks[0].length];
         rotated[2][0] = blocks[0][0];
         rotated[1][0] = blocks[0][1];
@@ -207,7 +243,7 @@ public class GamePiece {
         rotated[1][2] = blocks[2][1];
         rotated[0][2] = blocks[2][2];
 
-        blocks = rotated;
+        return rotated;
     }
 
 
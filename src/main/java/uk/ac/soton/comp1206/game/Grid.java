@@ -1,14 +1,20 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import uk.ac.soton.comp1206.event.GridListener;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
  * arrow, with rows and columns.
  *
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display of the contents of
- * the grid.
+ * Changes to the grid are collected rather than announced one by one. Once a logical move is complete, publish sends
+ * a single notification with the set of changed cells to every GridListener and moves the grid on to a new version.
+ *
+ * A move that places a piece and clears lines should run as a transaction: begin, place, clear, then commit. Listeners
+ * are only told about the final state, so a cell that is both placed and cleared is not reported as changed, and they
+ * receive the set of cleared cells alongside it. A transaction can also be rolled back to the state it started from.
  *
  * The Grid contains functions related to modifying the model, for example, placing a piece inside the grid.
  *
@@ -27,9 +33,44 @@ public class Grid {
     private final int rows;
 
     /**
-     * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+     * The values of the grid in row-major order (index y * cols + x)
+     */
+    private final int[] cells;
+
+    /**
+     * The cells written since the last publish
+     */
+    private final BitSet touched;
+
+    /**
+     * The value each written cell had at the last publish
+     */
+    private final int[] original;
+
+    /**
+     * The cells whose value changed, worked out when publishing
+     */
+    private final BitSet changed;
+
+    /**
+     * The cells cleared since the last publish
      */
-    private final SimpleIntegerProperty[][] grid;
+    private final BitSet cleared;
+
+    /**
+     * Whether a transaction is open
+     */
+    private boolean inTransaction = false;
+
+    /**
+     * The version of the grid, incremented every time a batch of changes is published
+     */
+    private long version = 0;
+
+    /**
+     * The listeners to call when a batch of changes is published
+     */
+    private final List<GridListener> listeners = new ArrayList<>();
 
     /**
      * Create a new Grid with the specified number of columns and rows and initialise them
@@ -40,35 +81,147 @@ public class Grid {
         this.cols = cols;
         this.rows = rows;
 
-        //Create the grid itself
-        grid = new SimpleIntegerProperty[cols][rows];
-
-        //Add a SimpleIntegerProperty to every block in the grid
-        for(var y = 0; y < rows; y++) {
-            for(var x = 0; x < cols; x++) {
-                grid[x][y] = new SimpleIntegerProperty(0);
-            }
-        }
+        //Create the grid itself, with every block empty
+        cells = new int[cols * rows];
+        touched = new BitSet(cols * rows);
+        original = new int[cols * rows];
+        changed = new BitSet(cols * rows);
+        cleared = new BitSet(cols * rows);
     }
 
     /**
-     * Get the Integer property contained inside the grid at a given row and column index. Can be used for binding.
+     * Update the value at the given x and y index within the grid. The change is announced on the next publish or
+     * commit.
      * @param x column
      * @param y row
-     * @return the IntegerProperty at the given x and y in this grid
+     * @param value the new value
      */
-    public IntegerProperty getGridProperty(int x, int y) {
-        return grid[x][y];
+    public void set(int x, int y, int value) {
+        int index = y * cols + x;
+        // Remember the value from before the first write, to work out the final changes and to roll back
+        if (!touched.get(index)) {
+            touched.set(index);
+            original[index] = cells[index];
+        }
+        cells[index] = value;
     }
 
     /**
-     * Update the value at the given x and y index within the grid
+     * Clear the value at the given x and y index within the grid as part of a full line
      * @param x column
      * @param y row
-     * @param value the new value
      */
-    public void set(int x, int y, int value) {
-        grid[x][y].set(value);
+    public void clear(int x, int y) {
+        if (get(x, y) > 0) {
+            cleared.set(y * cols + x);
+        }
+        set(x, y, 0);
+    }
+
+    /**
+     * Announce all changes made since the last publish to the listeners as one batch and move on to a new version.
+     * Does nothing if no cell has changed.
+     * @throws IllegalStateException if a transaction is open
+     */
+    public void publish() {
+        if (inTransaction) {
+            throw new IllegalStateException("Cannot publish while a transaction is open");
+        }
+        flush();
+    }
+
+    /**
+     * Open a transaction. Changes made until commit are announced together, and can be undone with rollback.
+     * @throws IllegalStateException if a transaction is already open
+     */
+    public void begin() {
+        if (inTransaction) {
+            throw new IllegalStateException("Transaction already open");
+        }
+        // Announce anything written before the transaction on its own
+        flush();
+        inTransaction = true;
+    }
+
+    /**
+     * Close the open transaction, announcing its final state and cleared cells to the listeners as one batch
+     * @throws IllegalStateException if no transaction is open
+     */
+    public void commit() {
+        if (!inTransaction) {
+            throw new IllegalStateException("No transaction open");
+        }
+        inTransaction = false;
+        flush();
+    }
+
+    /**
+     * Close the open transaction, putting back every cell written since it was opened. Nothing is announced.
+     * @throws IllegalStateException if no transaction is open
+     */
+    public void rollback() {
+        if (!inTransaction) {
+            throw new IllegalStateException("No transaction open");
+        }
+        inTransaction = false;
+        for (int i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1)) {
+            cells[i] = original[i];
+        }
+        touched.clear();
+        cleared.clear();
+    }
+
+    /**
+     * Check whether a transaction is open
+     * @return whether a transaction is open
+     */
+    public boolean isInTransaction() {
+        return inTransaction;
+    }
+
+    /**
+     * Work out which written cells ended up with a different value and announce them, with the cleared cells, to the
+     * listeners
+     */
+    private void flush() {
+        for (int i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1)) {
+            if (cells[i] != original[i]) {
+                changed.set(i);
+            }
+        }
+        touched.clear();
+        if (!changed.isEmpty() || !cleared.isEmpty()) {
+            version++;
+            for (GridListener listener : listeners) {
+                listener.gridChanged(this, changed, cleared);
+            }
+        }
+        changed.clear();
+        cleared.clear();
+    }
+
+    /**
+     * Add a listener to handle an event when a batch of changes is published
+     * @param listener listener to add
+     */
+    public void addListener(GridListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a previously added listener
+     * @param listener listener to remove
+     */
+    public void removeListener(GridListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the version of the grid, which is incremented every time a batch of changes is published or committed
+     * @return version
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -78,13 +231,20 @@ public class Grid {
      * @return the value
      */
     public int get(int x, int y) {
-        try {
-            //Get the value held in the property at the x and y index provided
-            return grid[x][y].get();
-        } catch (ArrayIndexOutOfBoundsException e) {
-            //No such index
+        //No such index
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
             return -1;
         }
+        //Get the value held at the x and y index provided
+        return cells[y * cols + x];
+    }
+
+    /**
+     * Get the values of the grid in row-major order (index y * cols + x). The array is live and must not be modified.
+     * @return values of the grid
+     */
+    int[] getCells() {
+        return cells;
     }
 
     /**
@@ -111,19 +271,43 @@ public class Grid {
      * @return whether the piece can be placed
      */
     public boolean canPlayPiece(GamePiece piece, int x, int y) {
-        // Get all blocks of the piece
-        var pieceBlocks = piece.getBlocks();
-        for (int i = 0; i < pieceBlocks.length; i++) {
-            for (int j = 0; j < pieceBlocks[i].length; j++) {
+        return canPlayPiece(piece, 0, x, y);
+    }
+
+    /**
+     * Figure out whether a piece in a given rotation can be placed in a certain position
+     * @param piece the piece to place
+     * @param rotation the rotation of the piece
+     * @param x x-coordinate of the position to place
+     * @param y y-coordinate of the position to place
+     * @return whether the piece can be placed
+     */
+    public boolean canPlayPiece(GamePiece piece, int rotation, int x, int y) {
+        return fits(cells, cols, rows, piece.getBlocks(rotation), x, y);
+    }
+
+    /**
+     * Figure out whether a piece shape fits at a certain position of a grid given as an array of cells. Every block of
+     * the shape must land on an empty cell inside the grid. Shared with the headless Simulation.
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieceBlocks the 3x3 shape of the piece, centred on the position
+     * @param x x-coordinate of the position to place
+     * @param y y-coordinate of the position to place
+     * @return whether the piece fits
+     */
+    static boolean fits(int[] cells, int cols, int rows, int[][] pieceBlocks, int x, int y) {
+        for (int i = 0; i <= 2; i++) {
+            for (int j = 0; j <= 2; j++) {
                 if (pieceBlocks[i][j] == 0) {
                     continue;
                 }
                 // Return false if block cannot be placed
-                if ((pieceBlocks[0][j] != 0 && x == 0) ||
-                    (pieceBlocks[2][j] != 0 && x == rows-1) ||
-                    (pieceBlocks[i][0] != 0 && y == 0) ||
-                    (pieceBlocks[i][2] != 0 && y == cols-1) ||
-                    get(x+i-1, y+j-1) != 0) {
+                int blockX = x + i - 1;
+                int blockY = y + j - 1;
+                if (blockX < 0 || blockX >= cols || blockY < 0 || blockY >= rows ||
+                    cells[blockY * cols + blockX] != 0) {
                     return false;
                 }
             }
@@ -138,10 +322,21 @@ public class Grid {
      * @param y y-coordinate of the position to place
      */
     public void playPiece(GamePiece piece, int x, int y) {
+        playPiece(piece, 0, x, y);
+    }
+
+    /**
+     * Place a piece in a given rotation into the specified position
+     * @param piece the piece to place
+     * @param rotation the rotation of the piece
+     * @param x x-coordinate of the position to place
+     * @param y y-coordinate of the position to place
+     */
+    public void playPiece(GamePiece piece, int rotation, int x, int y) {
         // Get all blocks of the piece
-        var pieceBlocks = piece.getBlocks();
+        var pieceBlocks = piece.getBlocks(rotation);
         // Play the piece if it can be played
-        if (canPlayPiece(piece, x, y)) {
+        if (canPlayPiece(piece, rotation, x, y)) {
             for (int i = 0; i <= 2; i++) {
                 for (int j = 0; j <= 2; j++) {
                     if (pieceBlocks[i][j] != 0) {
@@ -0,0 +1,121 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.BitSet;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A LineDetector finds the full rows and columns of a grid. The cells are given as a flat array of values in row-major
+ * order, where 0 means an empty cell.
+ *
+ * There are two implementations: a plain scalar one which works everywhere, and a vectorised one built on the
+ * jdk.incubator.vector module. The vectorised one is only used when that module has been added to the JVM (for example
+ * with --add-modules jdk.incubator.vector) and the board is wide enough for it to pay off.
+ */
+public abstract class LineDetector {
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(LineDetector.class);
+
+    /**
+     * The name of the module holding the Vector API
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The narrowest board (in columns) that uses the vectorised detector. Narrower boards do not fill a single vector
+     * on most CPUs, so every cell would go through the scalar tail anyway. Can be overridden with
+     * -Dtetrecs.vector.minCols
+     */
+    private static final int VECTOR_MIN_COLS = Integer.getInteger("tetrecs.vector.minCols", 16);
+
+    /**
+     * The scalar detector, shared as it holds no state
+     */
+    private static final LineDetector SCALAR = new ScalarLineDetector();
+
+    /**
+     * The vectorised detector, or null if the Vector API is not available in this JVM
+     */
+    private static final LineDetector VECTOR = loadVector();
+
+    /**
+     * Find the full rows of the grid
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param out set to add the index of each full row to
+     */
+    public abstract void findFullRows(int[] cells, int cols, int rows, BitSet out);
+
+    /**
+     * Find the full columns of the grid
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param out set to add the index of each full column to
+     */
+    public abstract void findFullColumns(int[] cells, int cols, int rows, BitSet out);
+
+    /**
+     * Get the name of this detector
+     * @return name
+     */
+    public abstract String getName();
+
+    /**
+     * Pick the best detector for a board of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return detector to use
+     */
+    public static LineDetector forSize(int cols, int rows) {
+        if (VECTOR != null && cols >= VECTOR_MIN_COLS) {
+            return VECTOR;
+        }
+        return SCALAR;
+    }
+
+    /**
+     * Get the scalar detector
+     * @return scalar detector
+     */
+    public static LineDetector scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Get the vectorised detector
+     * @return vectorised detector, or null if the Vector API is not available
+     */
+    public static LineDetector vector() {
+        return VECTOR;
+    }
+
+    /**
+     * Load the vectorised detector if the Vector API module is present and has not been disabled
+     * @return vectorised detector or null
+     */
+    private static LineDetector loadVector() {
+        if (Boolean.getBoolean("tetrecs.vector.disable")) {
+            logger.info("Vector line detection disabled");
+            return null;
+        }
+        // The module is optional, so only touch the vectorised class once it is known to be resolved
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            LineDetector detector = new VectorLineDetector();
+            logger.info("Using vector line detection: {}", detector.getName());
+            return detector;
+        }
+        catch (LinkageError e) {
+            logger.error("Cannot load vector line detection");
+            return null;
+        }
+    }
+
+}
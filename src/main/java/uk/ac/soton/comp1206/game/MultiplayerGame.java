@@ -4,7 +4,6 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.ui.Multimedia;
 
 /**
  * The MultiplayerGame class handles the game played within multiple players. Methods to manipulate the game state
@@ -20,7 +19,7 @@ public class MultiplayerGame extends Game {
   /**
    * The queue to store pieces in order, received from the server
    */
-  private Deque<Integer> queue = new ArrayDeque<>(5);;
+  private final Deque<Integer> queue = new ArrayDeque<>(5);
 
   /**
    * Create a new multiplayer game with the specified rows and columns. Calls the constructor of super class.
@@ -31,6 +30,17 @@ public class MultiplayerGame extends Game {
     super(cols, rows);
   }
 
+  /**
+   * Create a new multiplayer game with the specified rows and columns, run by the given host. Calls the constructor of
+   * super class.
+   * @param cols number of columns
+   * @param rows number of rows
+   * @param host host to run the timer of the game on
+   */
+  public MultiplayerGame(int cols, int rows, GameHost host) {
+    super(cols, rows, host);
+  }
+
   /**
    * Initialise a new multiplayer game and set up anything that needs to be done at the start.
    * Calls the initialiseGame method of the super class
@@ -39,16 +49,18 @@ public class MultiplayerGame extends Game {
   public void initialiseGame() {
     super.initialiseGame();
     logger.info("Initialising game");
-    Multimedia.playMusicFile("game_start.wav");
+    playMusic("game_start.wav");
 
     // Set initial current piece
     currentPiece = spawnPiece();
+    currentRotation = 0;
     // Set initial following piece
     followingPiece = spawnPiece();
+    followingRotation = 0;
 
     // Call the listener nextPiece method
     if (nextPieceListener != null) {
-      nextPieceListener.nextPiece(currentPiece, followingPiece);
+      nextPieceListener.nextPiece(currentPiece, currentRotation, followingPiece, followingRotation);
     }
   }
 
@@ -57,7 +69,7 @@ public class MultiplayerGame extends Game {
    * @return piece
    */
   @Override
-  public GamePiece spawnPiece() {
+  public synchronized GamePiece spawnPiece() {
     try {
       // Take a piece off the queue
       return GamePiece.createPiece(queue.poll());
@@ -72,7 +84,7 @@ public class MultiplayerGame extends Game {
    * Push a piece to the queue
    * @param number the number of the piece to add
    */
-  public void push(int number) {
+  public synchronized void push(int number) {
     try {
       // Push the piece number onto queue
       queue.add(number);
@@ -0,0 +1,68 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.BitSet;
+
+/**
+ * The ScalarLineDetector checks each cell of the grid in turn. It is used for small boards and whenever the Vector API
+ * is not available.
+ */
+class ScalarLineDetector extends LineDetector {
+
+    /**
+     * Find the full rows of the grid
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param out set to add the index of each full row to
+     */
+    @Override
+    public void findFullRows(int[] cells, int cols, int rows, BitSet out) {
+        for (int y = 0; y < rows; y++) {
+            int offset = y * cols;
+            boolean full = true;
+            for (int x = 0; x < cols; x++) {
+                if (cells[offset + x] == 0) {
+                    full = false;
+                    break;
+                }
+            }
+            if (full) {
+                out.set(y);
+            }
+        }
+    }
+
+    /**
+     * Find the full columns of the grid
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param out set to add the index of each full column to
+     */
+    @Override
+    public void findFullColumns(int[] cells, int cols, int rows, BitSet out) {
+        // Start with every column marked as full and knock out the ones with an empty cell, row by row
+        BitSet full = new BitSet(cols);
+        full.set(0, cols);
+        for (int y = 0; y < rows && !full.isEmpty(); y++) {
+            int offset = y * cols;
+            for (int x = full.nextSetBit(0); x >= 0; x = full.nextSetBit(x + 1)) {
+                if (cells[offset + x] == 0) {
+                    full.clear(x);
+                }
+            }
+        }
+        // Add to what the caller has already, as the vector detector does
+        out.or(full);
+    }
+
+    /**
+     * Get the name of this detector
+     * @return name
+     */
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+}
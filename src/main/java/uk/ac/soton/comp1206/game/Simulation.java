@@ -0,0 +1,389 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The Simulation is a headless version of the rules of the Game, for bots, tuners and rollouts. It has no timer,
+ * properties, listeners or sound: moves are applied straight away and a timeout is just another move. The grid is a
+ * plain array of cells, so a simulation can be copied cheaply and without allocating.
+ *
+ * Pieces are drawn from a small seeded generator held in the simulation itself, so two simulations with the same seed
+ * are dealt exactly the same pieces whatever moves are played, and a copy continues with the same pieces as the
+ * original.
+ *
+ * A Simulation is not thread-safe; give each thread its own.
+ */
+public class Simulation {
+
+    /**
+     * The lives a new game starts with
+     */
+    public static final int STARTING_LIVES = 3;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * The values of the grid in row-major order (index y * cols + x)
+     */
+    private final int[] cells;
+
+    /**
+     * Finds the full lines of the grid, picked for the size of the board
+     */
+    private final LineDetector lineDetector;
+
+    /**
+     * Reusable set of full rows
+     */
+    private final BitSet fullRows;
+
+    /**
+     * Reusable set of full columns
+     */
+    private final BitSet fullColumns;
+
+    /**
+     * The state of the piece generator
+     */
+    private long seed;
+
+    /**
+     * The piece currently being played
+     */
+    private GamePiece currentPiece;
+
+    /**
+     * The piece that will be played after the current piece
+     */
+    private GamePiece followingPiece;
+
+    /**
+     * The score
+     */
+    private int score;
+
+    /**
+     * The level
+     */
+    private int level;
+
+    /**
+     * The lives left
+     */
+    private int lives;
+
+    /**
+     * The multiplier
+     */
+    private int multiplier;
+
+    /**
+     * The number of pieces played
+     */
+    private int moves;
+
+    /**
+     * Create a new simulation of an empty board
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed seed of the pieces dealt
+     */
+    public Simulation(int cols, int rows, long seed) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cells = new int[cols * rows];
+        this.lineDetector = LineDetector.forSize(cols, rows);
+        this.fullRows = new BitSet(rows);
+        this.fullColumns = new BitSet(cols);
+        reset(seed);
+    }
+
+    /**
+     * Create a simulation starting from the current state of a game. Rotations are not copied, as every move names
+     * the rotation to play in.
+     * @param game game to copy
+     * @param seed seed of the pieces dealt after the following piece
+     * @return simulation
+     */
+    public static Simulation of(Game game, long seed) {
+        Simulation simulation;
+        synchronized (game) {
+            simulation = new Simulation(game.getCols(), game.getRows(), seed);
+            System.arraycopy(game.getGrid().getCells(), 0, simulation.cells, 0, simulation.cells.length);
+            simulation.currentPiece = game.getCurrentPiece();
+            simulation.followingPiece = game.getFollowingPiece();
+            simulation.score = game.scoreProperty().get();
+            simulation.level = game.levelProperty().get();
+            simulation.lives = game.livesProperty().get();
+            simulation.multiplier = game.multiplierProperty().get();
+        }
+        return simulation;
+    }
+
+    /**
+     * Start again with an empty board
+     * @param seed seed of the pieces dealt
+     */
+    public void reset(long seed) {
+        Arrays.fill(cells, 0);
+        this.seed = seed;
+        currentPiece = spawnPiece();
+        followingPiece = spawnPiece();
+        score = 0;
+        level = 0;
+        lives = STARTING_LIVES;
+        multiplier = 1;
+        moves = 0;
+    }
+
+    /**
+     * Make this simulation an exact copy of another one of the same size, including the pieces still to come
+     * @param other simulation to copy
+     */
+    public void copyFrom(Simulation other) {
+        if (other.cols != cols || other.rows != rows) {
+            throw new IllegalArgumentException("Cannot copy a " + other.cols + "x" + other.rows + " simulation into a "
+                + cols + "x" + rows + " one");
+        }
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        seed = other.seed;
+        currentPiece = other.currentPiece;
+        followingPiece = other.followingPiece;
+        score = other.score;
+        level = other.level;
+        lives = other.lives;
+        multiplier = other.multiplier;
+        moves = other.moves;
+    }
+
+    /**
+     * Change the pieces that will be dealt from now on, keeping the current and following piece
+     * @param seed new seed
+     */
+    public void reseed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Figure out whether the current piece can be placed in a certain position
+     * @param rotation rotation of the piece
+     * @param x x-coordinate of the position to place
+     * @param y y-coordinate of the position to place
+     * @return whether the piece can be placed
+     */
+    public boolean canPlay(int rotation, int x, int y) {
+        return canPlay(currentPiece, rotation, x, y);
+    }
+
+    /**
+     * Figure out whether any piece can be placed in a certain position
+     * @param piece the piece to place
+     * @param rotation rotation of the piece
+     * @param x x-coordinate of the position to place
+     * @param y y-coordinate of the position to place
+     * @return whether the piece can be placed
+     */
+    public boolean canPlay(GamePiece piece, int rotation, int x, int y) {
+        return Grid.fits(cells, cols, rows, piece.getBlocks(rotation), x, y);
+    }
+
+    /**
+     * Place the current piece, clear any full lines, score them and move on to the next piece
+     * @param rotation rotation of the piece
+     * @param x x-coordinate of the position to place
+     * @param y y-coordinate of the position to place
+     * @return number of lines cleared, or -1 if the piece cannot be placed there
+     */
+    public int play(int rotation, int x, int y) {
+        int[][] pieceBlocks = currentPiece.getBlocks(rotation);
+        if (!Grid.fits(cells, cols, rows, pieceBlocks, x, y)) {
+            return -1;
+        }
+
+        // Place the piece
+        for (int i = 0; i <= 2; i++) {
+            for (int j = 0; j <= 2; j++) {
+                if (pieceBlocks[i][j] != 0) {
+                    cells[(y + j - 1) * cols + x + i - 1] = pieceBlocks[i][j];
+                }
+            }
+        }
+
+        // Identify and clear full lines, counting each cleared block once
+        fullRows.clear();
+        fullColumns.clear();
+        lineDetector.findFullRows(cells, cols, rows, fullRows);
+        lineDetector.findFullColumns(cells, cols, rows, fullColumns);
+        int clearedRows = fullRows.cardinality();
+        int clearedColumns = fullColumns.cardinality();
+        int lines = clearedRows + clearedColumns;
+        int blocks = clearedRows * cols + clearedColumns * rows - clearedRows * clearedColumns;
+        for (int row = fullRows.nextSetBit(0); row >= 0; row = fullRows.nextSetBit(row + 1)) {
+            Arrays.fill(cells, row * cols, (row + 1) * cols, 0);
+        }
+        for (int column = fullColumns.nextSetBit(0); column >= 0; column = fullColumns.nextSetBit(column + 1)) {
+            for (int row = 0; row < rows; row++) {
+                cells[row * cols + column] = 0;
+            }
+        }
+
+        // Score, following the same rules as the Game
+        score += Game.scoreFor(lines, blocks, multiplier);
+        multiplier = lines == 0 ? 1 : multiplier + 1;
+        level = Math.max(level, Game.levelFor(score));
+
+        moves++;
+        nextPiece();
+        return lines;
+    }
+
+    /**
+     * Swap the current piece with the following piece
+     */
+    public void swap() {
+        GamePiece tempPiece = currentPiece;
+        currentPiece = followingPiece;
+        followingPiece = tempPiece;
+    }
+
+    /**
+     * Let the timer run out: lose a life, reset the multiplier and move on to the next piece
+     */
+    public void timeout() {
+        lives--;
+        multiplier = 1;
+        nextPiece();
+    }
+
+    /**
+     * Check whether the game is over
+     * @return whether all lives are lost
+     */
+    public boolean isOver() {
+        return lives < 0;
+    }
+
+    /**
+     * Move on to the next piece
+     */
+    private void nextPiece() {
+        currentPiece = followingPiece;
+        followingPiece = spawnPiece();
+    }
+
+    /**
+     * Deal a piece from the seeded generator (SplitMix64)
+     * @return piece
+     */
+    private GamePiece spawnPiece() {
+        seed += 0x9E3779B97F4A7C15L;
+        long z = seed;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return GamePiece.createPiece((int) Long.remainderUnsigned(z, GamePiece.PIECES));
+    }
+
+    /**
+     * Get the value at the given x and y index within the grid
+     * @param x column
+     * @param y row
+     * @return the value, or -1 outside the grid
+     */
+    public int get(int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            return -1;
+        }
+        return cells[y * cols + x];
+    }
+
+    /**
+     * Get the values of the grid in row-major order (index y * cols + x). The array is live and must not be modified.
+     * @return values of the grid
+     */
+    public int[] getCells() {
+        return cells;
+    }
+
+    /**
+     * Get the number of columns
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the piece currently being played
+     * @return current piece
+     */
+    public GamePiece getCurrentPiece() {
+        return currentPiece;
+    }
+
+    /**
+     * Get the piece that will be played after the current piece
+     * @return following piece
+     */
+    public GamePiece getFollowingPiece() {
+        return followingPiece;
+    }
+
+    /**
+     * Get the score
+     * @return score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the level
+     * @return level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the lives left
+     * @return lives
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Get the multiplier
+     * @return multiplier
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Get the number of pieces played
+     * @return moves
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+}
@@ -0,0 +1,100 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.BitSet;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VectorLineDetector compares a whole vector of cells against 0 at once using the jdk.incubator.vector module.
+ * Only loaded by LineDetector once the module is known to be present.
+ */
+class VectorLineDetector extends LineDetector {
+
+    /**
+     * The preferred vector shape of this CPU
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Find the full rows of the grid
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param out set to add the index of each full row to
+     */
+    @Override
+    public void findFullRows(int[] cells, int cols, int rows, BitSet out) {
+        int bound = SPECIES.loopBound(cols);
+        for (int y = 0; y < rows; y++) {
+            int offset = y * cols;
+            boolean full = true;
+            int x = 0;
+            // Any empty lane in a chunk means the row is not full
+            for (; x < bound; x += SPECIES.length()) {
+                if (IntVector.fromArray(SPECIES, cells, offset + x).compare(VectorOperators.EQ, 0).anyTrue()) {
+                    full = false;
+                    break;
+                }
+            }
+            // Check the cells left over after the last whole vector
+            for (; full && x < cols; x++) {
+                if (cells[offset + x] == 0) {
+                    full = false;
+                }
+            }
+            if (full) {
+                out.set(y);
+            }
+        }
+    }
+
+    /**
+     * Find the full columns of the grid
+     * @param cells values of the grid in row-major order
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param out set to add the index of each full column to
+     */
+    @Override
+    public void findFullColumns(int[] cells, int cols, int rows, BitSet out) {
+        int bound = SPECIES.loopBound(cols);
+        int x = 0;
+        // Walk down a strip of columns as wide as a vector, keeping a lane mask of the columns still full
+        for (; x < bound; x += SPECIES.length()) {
+            VectorMask<Integer> full = SPECIES.maskAll(true);
+            for (int y = 0; y < rows && full.anyTrue(); y++) {
+                full = full.and(IntVector.fromArray(SPECIES, cells, y * cols + x).compare(VectorOperators.NE, 0));
+            }
+            long bits = full.toLong();
+            while (bits != 0) {
+                out.set(x + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        // Check the columns left over after the last whole vector
+        for (; x < cols; x++) {
+            boolean full = true;
+            for (int y = 0; y < rows; y++) {
+                if (cells[y * cols + x] == 0) {
+                    full = false;
+                    break;
+                }
+            }
+            if (full) {
+                out.set(x);
+            }
+        }
+    }
+
+    /**
+     * Get the name of this detector
+     * @return name
+     */
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+}
@@ -34,10 +34,16 @@ public class Communicator {
     /**
      * Create a new communicator to the given web socket server
      *
-     * @param server server to connect to
+     * @param server server to connect to, or null to stay offline and drop every message sent
      */
     public Communicator(String server) {
 
+        //Stay offline, for example when rendering without a network
+        if (server == null) {
+            logger.info("Not connecting to a server");
+            return;
+        }
+
         try {
             var socketFactory = new WebSocketFactory();
 
@@ -98,7 +104,9 @@ public class Communicator {
     public void send(String message) {
         logger.info("Sending message: " + message);
 
-        ws.sendText(message);
+        if (ws != null) {
+            ws.sendText(message);
+        }
     }
 
     /**
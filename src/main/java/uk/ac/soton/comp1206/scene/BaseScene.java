@@ -1,9 +1,12 @@
 package uk.ac.soton.comp1206.scene;
 
 import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import uk.ac.soton.comp1206.ui.DebugOverlay;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.QualityGovernor;
 
 /**
  * A Base Scene used in the game. Handles common functionality between all scenes.
@@ -25,6 +28,11 @@ public abstract class BaseScene {
      */
     protected Scene scene;
 
+    /**
+     * Adjusts the render quality from the pulses of the scene, and applies it to the scene
+     */
+    private QualityGovernor quality;
+
     /**
      * Create a new scene, passing in the GameWindow the scene will be displayed in
      * @param gameWindow the game window
@@ -44,13 +52,17 @@ public abstract class BaseScene {
     public abstract void build();
 
     /**
-     * Create a new JavaFX scene using the root contained within this scene
+     * Create a new JavaFX scene using the root contained within this scene, with a debug overlay toggled by F3
      * @return JavaFX scene
      */
     public Scene setScene() {
         var previous = gameWindow.getScene();
-        Scene scene = new Scene(root, previous.getWidth(), previous.getHeight(), Color.BLACK);
+        Scene scene = new Scene(new Pane(), previous.getWidth(), previous.getHeight(), Color.BLACK);
+        // Step the render quality with the pulses of this scene, timed from before any repaints register
+        quality = new QualityGovernor(scene);
+        scene.setRoot(root);
         scene.getStylesheets().add(getClass().getResource("/style/game.css").toExternalForm());
+        root.getChildren().add(new DebugOverlay(scene));
         this.scene = scene;
         return scene;
     }
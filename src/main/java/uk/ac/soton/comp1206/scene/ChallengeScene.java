@@ -1,10 +1,5 @@
 package uk.ac.soton.comp1206.scene;
 
-import javafx.animation.Interpolator;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.Timeline;
-import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.geometry.Pos;
@@ -12,20 +7,21 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.component.GameBlock;
+import uk.ac.soton.comp1206.ai.SwapAdvisor;
+import uk.ac.soton.comp1206.component.Board;
+import uk.ac.soton.comp1206.component.CanvasBoard;
 import uk.ac.soton.comp1206.component.GameBoard;
+import uk.ac.soton.comp1206.component.Minimap;
 import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.component.TimerBar;
 import uk.ac.soton.comp1206.game.Game;
-import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.Simulation;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.UiQueue;
 
 /**
  * The Single Player challenge scene. Holds the UI for the single player challenge mode in the game.
@@ -45,7 +41,7 @@ public class ChallengeScene extends BaseScene {
     /**
      * The game board on which the current game is being played
      */
-    protected GameBoard gameBoard;
+    protected Board gameBoard;
 
     /**
      * The board displaying the current piece
@@ -68,9 +64,9 @@ public class ChallengeScene extends BaseScene {
     protected VBox center;
 
     /**
-     * The rectangle illustrating the timer
+     * The frame around the board illustrating the timer
      */
-    private Rectangle rectangle;
+    private TimerBar timerBar;
 
     /**
      * The property of the high score
@@ -107,6 +103,41 @@ public class ChallengeScene extends BaseScene {
      */
     protected TextField txtMessage;
 
+    /**
+     * Time the swap advisor may spend on each piece, in milliseconds
+     */
+    private static final long SWAP_HINT_BUDGET = 20;
+
+    /**
+     * Number of pieces the swap advisor plays ahead
+     */
+    private static final int SWAP_HINT_HORIZON = 10;
+
+    /**
+     * Boards with more columns than this get a minimap beside them
+     */
+    private static final int MINIMAP_MIN_COLS = 16;
+
+    /**
+     * Width of the minimap, in pixels
+     */
+    private static final int MINIMAP_WIDTH = 200;
+
+    /**
+     * Label showing whether swapping is advised, hidden unless turned on with H
+     */
+    private Label lblSwapHint;
+
+    /**
+     * Advisor estimating the swap, created when the hint is first turned on
+     */
+    private SwapAdvisor swapAdvisor;
+
+    /**
+     * Number of the latest swap advice asked for, so advice finishing after a newer request is not shown
+     */
+    private long swapHintRequest;
+
     /**
      * Create a new Single Player challenge scene
      * @param gameWindow the Game Window
@@ -145,9 +176,9 @@ public class ChallengeScene extends BaseScene {
 
         // Add rectangle representing the timer
         var centerPane = new StackPane();
-        var board = new GameBoard(game.getGrid(), 400, 400);
-        rectangle = new Rectangle(405, 405);
-        centerPane.getChildren().addAll(rectangle, board);
+        var board = createBoard(400, 400);
+        timerBar = new TimerBar(405, 405);
+        centerPane.getChildren().addAll(timerBar, board.asNode());
 
         // Field for inputting chat messages (only available if multiplayer)
         txtMessage = new TextField();
@@ -165,8 +196,8 @@ public class ChallengeScene extends BaseScene {
         center.getChildren().addAll(centerPane, txtMessage);
         mainPane.setCenter(center);
 
-        //Handle block on gameboard grid being clicked
-        board.setOnBlockClick(this::blockClicked);
+        //Handle cell on gameboard grid being clicked
+        board.setOnCellClicked(game::playPiece);
 
         // Create a box with all components of the top of border pane
         top = new HBox();
@@ -239,55 +270,68 @@ public class ChallengeScene extends BaseScene {
         // Add piece boards and swap button to right
         var lblFollowing = new Label("Following Piece");
         lblFollowing.getStyleClass().add("piece");
-        smallPieceBoard = new PieceBoard(new Grid(3, 3), 100, 100);
+        smallPieceBoard = new PieceBoard(100, 100);
         right.getChildren().addAll(lblFollowing, smallPieceBoard);
         var lblCurrent = new Label("Current Piece");
         lblCurrent.getStyleClass().add("piece");
-        pieceBoard = new PieceBoard(new Grid(3, 3), 150, 150);
+        pieceBoard = new PieceBoard(150, 150);
         right.getChildren().addAll(lblCurrent, pieceBoard);
         var btnSwap = new Button("Swap");
         btnSwap.getStyleClass().add("buttonBack");
         btnSwap.setOnAction(actionEvent -> game.swapCurrentPiece());
         right.getChildren().add(btnSwap);
+        lblSwapHint = new Label();
+        lblSwapHint.getStyleClass().add("piece");
+        lblSwapHint.setVisible(false);
+        right.getChildren().add(lblSwapHint);
+        // Show the whole of a big board in a minimap
+        if (game.getGrid().getCols() > MINIMAP_MIN_COLS) {
+            var minimap = new Minimap(game.getGrid(), Math.max(1, MINIMAP_WIDTH / game.getGrid().getCols()));
+            minimap.setFitWidth(MINIMAP_WIDTH);
+            minimap.setPreserveRatio(true);
+            right.getChildren().add(minimap);
+        }
         mainPane.setRight(right);
 
         this.gameBoard = board;
 
         //Add a next piece listener to the game with implementation of nextPiece method
-        game.setNextPieceListener((currentPiece, followingPiece) -> {
+        game.setNextPieceListener((currentPiece, currentRotation, followingPiece, followingRotation) -> {
             // Change value of high score if user scores higher than it was
             if (game.scoreProperty().get() > highScore.get()) {
                 highScore.bind(game.scoreProperty());
             }
             // Display current and following piece
-            pieceBoard.displayPiece(currentPiece);
-            smallPieceBoard.displayPiece(followingPiece);
+            pieceBoard.displayPiece(currentPiece, currentRotation);
+            smallPieceBoard.displayPiece(followingPiece, followingRotation);
             // Handle hovering
-            gameBoard.pieceChanged(currentPiece, gameBoard.getCurrentBlock());
+            gameBoard.pieceChanged(currentPiece, currentRotation, gameBoard.getCursorX(), gameBoard.getCursorY());
+            // Update the swap hint
+            if (lblSwapHint.isVisible()) {
+                updateSwapHint();
+            }
         });
 
         //Add a right clicked listener to the main board with implementation of rightClicked method
         board.setRightClickedListener(() -> {
-            // Stop previous hovering
-            gameBoard.hover(game.getCurrentPiece(), gameBoard.getCurrentBlock(), MouseEvent.MOUSE_EXITED);
             // Rotate current piece
             game.rotateCurrentPiece(false);
             // Show new hovering
-            gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getCurrentBlock());
+            gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), gameBoard.getCursorX(),
+                gameBoard.getCursorY());
             // Display new current piece
-            pieceBoard.displayPiece(game.getCurrentPiece());
+            pieceBoard.displayPiece(game.getCurrentPiece(), game.getCurrentRotation());
         });
 
         //Add a right clicked listener to the current piece board with implementation of rightClicked method
         pieceBoard.setRightClickedListener(() -> {
-            // Stop previous hovering
-            gameBoard.hover(game.getCurrentPiece(), gameBoard.getCurrentBlock(), MouseEvent.MOUSE_EXITED);
             // Rotate current piece
             game.rotateCurrentPiece(false);
             // Show new hovering
-            gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getCurrentBlock());
+            gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), gameBoard.getCursorX(),
+                gameBoard.getCursorY());
             // Display new current piece
-            pieceBoard.displayPiece(game.getCurrentPiece());
+            pieceBoard.displayPiece(game.getCurrentPiece(), game.getCurrentRotation());
         });
 
         //Add a right clicked listener to the following piece board with implementation of rightClicked method
@@ -304,13 +348,9 @@ public class ChallengeScene extends BaseScene {
 
         //Add a game loop listener to the game with implementation of gameLoop method
         game.setGameLoopListener(milliseconds -> {
-            // Continue game if lives are >= 0
-            if (game.livesProperty().get() >= 0) {
-                gameLoopShow(milliseconds);
-            }
-            // End game otherwise
-            else {
-                Platform.runLater(() -> {
+            // End game if lives are below 0; the timer bar follows the new loop by itself otherwise
+            if (game.livesProperty().get() < 0) {
+                UiQueue.runLater(() -> {
                     if (multi) {
                         game.cancelLoopTimer();
                         multiShutDown();
@@ -322,20 +362,19 @@ public class ChallengeScene extends BaseScene {
             }
         });
 
-        //Add a hover listener to the main board with implementation of hover method
-        gameBoard.setHoverListener((gameBlock, event, green) -> {
-            // Hover the block
-            game.hover(gameBlock, event, green);
-        });
-
     }
 
     /**
-     * Handle when a block is clicked
-     * @param gameBlock the Game Block that was clocked
+     * Create the main board: one GameBlock node per cell, or with -Dtetrecs.board=canvas a single CanvasBoard
+     * @param width the visual width
+     * @param height the visual height
+     * @return board
      */
-    private void blockClicked(GameBlock gameBlock) {
-        game.blockClicked(gameBlock);
+    protected Board createBoard(double width, double height) {
+        if ("canvas".equals(System.getProperty("tetrecs.board"))) {
+            return new CanvasBoard(game.getGrid(), width, height);
+        }
+        return new GameBoard(game.getGrid(), width, height);
     }
 
     /**
@@ -344,8 +383,10 @@ public class ChallengeScene extends BaseScene {
     public void setupGame() {
         logger.info("Starting a new challenge");
 
-        //Start new game
-        game = new Game(5, 5);
+        //Start new game, bigger than 5x5 with -Dtetrecs.boardSize (best shown with -Dtetrecs.board=canvas)
+        int size = Integer.getInteger("tetrecs.boardSize", 5);
+        game = new Game(size, size);
+        game.setMultimedia(gameWindow.getMultimedia());
     }
 
     /**
@@ -356,6 +397,8 @@ public class ChallengeScene extends BaseScene {
         logger.info("Initialising Challenge");
         // Start game
         game.start();
+        // Show the timer
+        timerBar.start(game);
         // Set actions that will be taken when keys are pressed on keyboard
         setKeyboard();
     }
@@ -369,6 +412,11 @@ public class ChallengeScene extends BaseScene {
         gameWindow.cleanup();
         // Stop the timer
         game.cancelLoopTimer();
+        timerBar.stop();
+        // Stop the swap advisor
+        if (swapAdvisor != null) {
+            swapAdvisor.shutdown();
+        }
         // Load another scene
         if (scores) {
             gameWindow.loadScene(new LoginScene(gameWindow, game));
@@ -391,73 +439,80 @@ public class ChallengeScene extends BaseScene {
             else if (keyEvent.getCode() == KeyCode.Q ||
                 keyEvent.getCode() == KeyCode.Z ||
                 keyEvent.getCode() == KeyCode.OPEN_BRACKET) {
-                gameBoard.hover(game.getCurrentPiece(), gameBoard.getCurrentBlock(), MouseEvent.MOUSE_EXITED);
                 game.rotateCurrentPiece(true);
-                gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getCurrentBlock());
-                pieceBoard.displayPiece(game.getCurrentPiece());
-                smallPieceBoard.displayPiece(game.getFollowingPiece());
+                gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), gameBoard.getCursorX(),
+                gameBoard.getCursorY());
+                pieceBoard.displayPiece(game.getCurrentPiece(), game.getCurrentRotation());
+                smallPieceBoard.displayPiece(game.getFollowingPiece(), game.getFollowingRotation());
             }
             // Rotate piece right
             else if (keyEvent.getCode() == KeyCode.E ||
                 keyEvent.getCode() == KeyCode.C ||
                 keyEvent.getCode() == KeyCode.CLOSE_BRACKET) {
-                gameBoard.hover(game.getCurrentPiece(), gameBoard.getCurrentBlock(), MouseEvent.MOUSE_EXITED);
                 game.rotateCurrentPiece(false);
-                gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getCurrentBlock());
-                pieceBoard.displayPiece(game.getCurrentPiece());
-                smallPieceBoard.displayPiece(game.getFollowingPiece());
+                gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), gameBoard.getCursorX(),
+                gameBoard.getCursorY());
+                pieceBoard.displayPiece(game.getCurrentPiece(), game.getCurrentRotation());
+                smallPieceBoard.displayPiece(game.getFollowingPiece(), game.getFollowingRotation());
             }
             // Swap current piece with following
             else if (keyEvent.getCode() == KeyCode.SPACE ||
                 keyEvent.getCode() == KeyCode.R) {
                 game.swapCurrentPiece();
             }
+            // Toggle the swap hint (only in single player, as the server deals multiplayer pieces)
+            else if (keyEvent.getCode() == KeyCode.H && !multi) {
+                lblSwapHint.setVisible(!lblSwapHint.isVisible());
+                if (lblSwapHint.isVisible()) {
+                    updateSwapHint();
+                }
+            }
             // Drop piece
             else if (keyEvent.getCode() == KeyCode.ENTER ||
                 keyEvent.getCode() == KeyCode.X) {
-                gameBoard.dropPiece(gameBoard.getCurrentBlock());
+                game.playPiece(gameBoard.getCursorX(), gameBoard.getCursorY());
             }
             else {
-                int x = gameBoard.getCurrentBlock().getX();
-                int y = gameBoard.getCurrentBlock().getY();
+                int x = gameBoard.getCursorX();
+                int y = gameBoard.getCursorY();
                 // Move piece left
                 if (keyEvent.getCode().equals(KeyCode.LEFT) ||
                     keyEvent.getCode().equals(KeyCode.A)) {
                     if (x - 1 >= 0) {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(x - 1, y));
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), x - 1, y);
                     }
                     else {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(0, y));
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), 0, y);
                     }
                 }
                 // Move piece right
                 else if (keyEvent.getCode().equals(KeyCode.RIGHT) ||
                     keyEvent.getCode().equals(KeyCode.D)) {
-                    if (x + 1 <= gameBoard.getColumnCount() - 1) {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(x + 1, y));
+                    if (x + 1 <= gameBoard.getCols() - 1) {
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), x + 1, y);
                     }
                     else {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(gameBoard.getColumnCount() - 1, y));
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), gameBoard.getCols() - 1, y);
                     }
                 }
                 // Move piece up
                 else if (keyEvent.getCode().equals(KeyCode.UP) ||
                     keyEvent.getCode().equals(KeyCode.W)) {
                     if (y - 1 >= 0) {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(x, y - 1));
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), x, y - 1);
                     }
                     else {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(x, 0));
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), x, 0);
                     }
                 }
                 // Move piece down
                 else if (keyEvent.getCode().equals(KeyCode.DOWN) ||
                     keyEvent.getCode().equals(KeyCode.S)) {
-                    if (y + 1 <= gameBoard.getRowCount() - 1) {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(x, y + 1));
+                    if (y + 1 <= gameBoard.getRows() - 1) {
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), x, y + 1);
                     }
                     else {
-                        gameBoard.pieceChanged(game.getCurrentPiece(), gameBoard.getBlock(x, gameBoard.getColumnCount() - 1));
+                        gameBoard.pieceChanged(game.getCurrentPiece(), game.getCurrentRotation(), x, gameBoard.getRows() - 1);
                     }
                 }
                 // Use chat (only in multiplayer)
@@ -472,16 +527,33 @@ public class ChallengeScene extends BaseScene {
     }
 
     /**
-     * Display the timer as a rectangle that changes its color from green to red
+     * Estimate in the background whether swapping the current piece pays off, and show the result in the hint label
+     * unless newer advice has been asked for in the meantime
+     */
+    private void updateSwapHint() {
+        if (swapAdvisor == null) {
+            swapAdvisor = new SwapAdvisor(SWAP_HINT_HORIZON);
+        }
+        long request = ++swapHintRequest;
+        var state = Simulation.of(game, System.nanoTime());
+        swapAdvisor.adviseAsync(state, SWAP_HINT_BUDGET).thenAccept(advice -> UiQueue.runLater(() -> {
+            // Advice on an earlier piece may finish last
+            if (request != swapHintRequest) {
+                return;
+            }
+            lblSwapHint.setText(String.format("%s: %+.0f pts%s", advice.shouldSwap() ? "Swap" : "Keep",
+                advice.getSwap().getScore() - advice.getKeep().getScore(),
+                advice.isConfident() ? "" : "?"));
+            logger.debug("Swap advice: {}", advice);
+        }));
+    }
+
+    /**
+     * Get the game played in this scene
+     * @return game
      */
-    public void gameLoopShow(int milliseconds) {
-        rectangle.setStroke(Color.rgb(0, 204, 0));
-        var timeline = new Timeline();
-        KeyFrame frame = new KeyFrame(Duration.millis(milliseconds),
-            new KeyValue(rectangle.strokeProperty(), Color.rgb(255, 0, 0), Interpolator.LINEAR));
-        timeline.getKeyFrames().add(frame);
-        // Play the timer animation
-        timeline.play();
+    public Game getGame() {
+        return game;
     }
 
     /**
@@ -490,7 +562,7 @@ public class ChallengeScene extends BaseScene {
     public void getHighScore() {
         // Creeate communicator
         var communicator = gameWindow.getCommunicator();
-        communicator.addListener(communication -> Platform.runLater(() -> {
+        communicator.addListener(communication -> UiQueue.runLater(() -> {
             // Split message
             String[] message = communication.split(" ");
             // Set high score
@@ -507,6 +579,7 @@ public class ChallengeScene extends BaseScene {
      */
     private void multiShutDown() {
         logger.info("Shutting down Multiplayer ChallengeScene");
+        timerBar.stop();
         ((MultiplayerScene) this).shutDown();
     }
 
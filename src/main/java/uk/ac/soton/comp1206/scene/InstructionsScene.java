@@ -6,18 +6,17 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.AssetCache;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -95,11 +94,10 @@ public class InstructionsScene extends BaseScene {
     try {
 
       // Add components to left
-      var imgGrid = new Image(String.valueOf(this.getClass().getResource("/images/grid.png")));
       var grid = new Rectangle();
       grid.setHeight(300);
       grid.setWidth(300);
-      grid.setFill(new ImagePattern(imgGrid));
+      AssetCache.fill(grid, "grid.png");
       left.getChildren().add(grid);
 
       var gridInfo = new Text("""
@@ -117,16 +115,14 @@ public class InstructionsScene extends BaseScene {
       movementButtons.setSpacing(20);
       left.getChildren().add(movementButtons);
 
-      var imgArrows = new Image(String.valueOf(this.getClass().getResource("/images/arrows.png")));
-      var imgWasd = new Image(String.valueOf(this.getClass().getResource("/images/wasd.png")));
       var arrows = new Rectangle();
       var wasd = new Rectangle();
       arrows.setHeight(100);
       wasd.setHeight(100);
       arrows.setWidth(150);
       wasd.setWidth(150);
-      arrows.setFill(new ImagePattern(imgArrows));
-      wasd.setFill(new ImagePattern(imgWasd));
+      AssetCache.fill(arrows, "arrows.png");
+      AssetCache.fill(wasd, "wasd.png");
       movementButtons.getChildren().addAll(arrows, wasd);
 
       var movementInfo = new Text("You can use your mouse to click to place\n"
@@ -152,11 +148,10 @@ public class InstructionsScene extends BaseScene {
       });
       center.getChildren().add(lblTitle);
 
-      var imgCurrentGrid = new Image(String.valueOf(this.getClass().getResource("/images/currentGrid.png")));
       var currentGrid = new Rectangle();
       currentGrid.setHeight(120);
       currentGrid.setWidth(120);
-      currentGrid.setFill(new ImagePattern(imgCurrentGrid));
+      AssetCache.fill(currentGrid, "currentGrid.png");
       center.getChildren().add(currentGrid);
 
       var currentGridInfo = new Text("""
@@ -167,11 +162,10 @@ public class InstructionsScene extends BaseScene {
       currentGridInfo.setTextAlignment(TextAlignment.CENTER);
       center.getChildren().add(currentGridInfo);
 
-      var imgFollowingGrid = new Image(String.valueOf(this.getClass().getResource("/images/followingGrid.png")));
       var followingGrid = new Rectangle();
       followingGrid.setHeight(90);
       followingGrid.setWidth(90);
-      followingGrid.setFill(new ImagePattern(imgFollowingGrid));
+      AssetCache.fill(followingGrid, "followingGrid.png");
       center.getChildren().add(followingGrid);
 
       var followingGridInfo = new Text("This shows the next piece.\n"
@@ -185,18 +179,16 @@ public class InstructionsScene extends BaseScene {
       rotateButtons.setAlignment(Pos.CENTER);
       center.getChildren().add(rotateButtons);
 
-      var imgQz = new Image(String.valueOf(this.getClass().getResource("/images/qz.png")));
       var qz = new Rectangle();
       qz.setHeight(90);
       qz.setWidth(90);
-      qz.setFill(new ImagePattern(imgQz));
+      AssetCache.fill(qz, "qz.png");
       rotateButtons.getChildren().add(qz);
 
-      var imgEc = new Image(String.valueOf(this.getClass().getResource("/images/ec.png")));
       var ec = new Rectangle();
       ec.setHeight(90);
       ec.setWidth(90);
-      ec.setFill(new ImagePattern(imgEc));
+      AssetCache.fill(ec, "ec.png");
       rotateButtons.getChildren().add(ec);
 
       var rotateInfo = new Text("You can rotate left and right with Q\n"
@@ -207,11 +199,10 @@ public class InstructionsScene extends BaseScene {
       mainPane.setCenter(center);
 
       // Add components to right
-      var imgEsc = new Image(String.valueOf(this.getClass().getResource("/images/esc.png")));
       var esc = new Rectangle();
       esc.setHeight(40);
       esc.setWidth(40);
-      esc.setFill(new ImagePattern(imgEsc));
+      AssetCache.fill(esc, "esc.png");
       right.getChildren().add(esc);
 
       var escInfo = new Text("""
@@ -227,18 +218,16 @@ public class InstructionsScene extends BaseScene {
       dropButtons.setAlignment(Pos.CENTER);
       right.getChildren().add(dropButtons);
 
-      var imgEnter = new Image(String.valueOf(this.getClass().getResource("/images/enter.png")));
       var enter = new Rectangle();
       enter.setHeight(100);
       enter.setWidth(70);
-      enter.setFill(new ImagePattern(imgEnter));
+      AssetCache.fill(enter, "enter.png");
       dropButtons.getChildren().add(enter);
 
-      var imgX = new Image(String.valueOf(this.getClass().getResource("/images/x.png")));
       var x = new Rectangle();
       x.setHeight(40);
       x.setWidth(40);
-      x.setFill(new ImagePattern(imgX));
+      AssetCache.fill(x, "x.png");
       dropButtons.getChildren().add(x);
 
       var dropInfo = new Text("Hit Enter or X to\n"
@@ -252,18 +241,16 @@ public class InstructionsScene extends BaseScene {
       swapButtons.setAlignment(Pos.CENTER);
       right.getChildren().add(swapButtons);
 
-      var imgSpace = new Image(String.valueOf(this.getClass().getResource("/images/space.png")));
       var space = new Rectangle();
       space.setHeight(40);
       space.setWidth(90);
-      space.setFill(new ImagePattern(imgSpace));
+      AssetCache.fill(space, "space.png");
       swapButtons.getChildren().add(space);
 
-      var imgR = new Image(String.valueOf(this.getClass().getResource("/images/r.png")));
       var r = new Rectangle();
       r.setHeight(40);
       r.setWidth(40);
-      r.setFill(new ImagePattern(imgR));
+      AssetCache.fill(r, "r.png");
       swapButtons.getChildren().add(r);
 
       var swapInfo = new Text("Hit SPACE or R to\n"
@@ -2,7 +2,6 @@ package uk.ac.soton.comp1206.scene;
 
 import java.util.Timer;
 import java.util.TimerTask;
-import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -23,7 +22,7 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
-import uk.ac.soton.comp1206.ui.Multimedia;
+import uk.ac.soton.comp1206.ui.UiQueue;
 
 /**
  * The Lobby scene. Holds the UI for the list of channels to connect to and the chat when already in a channel
@@ -95,7 +94,7 @@ public class LobbyScene extends BaseScene {
   @Override
   public void initialise() {
     logger.info("Initialising Lobby");
-    Multimedia.playMusicFile("game.wav");
+    gameWindow.getMultimedia().playMusicFile("game.wav");
 
     // Create communicator
     communicator = gameWindow.getCommunicator();
@@ -321,7 +320,7 @@ public class LobbyScene extends BaseScene {
    * @param communication message received from the server
    */
   private void network(String communication) {
-    Platform.runLater(() -> {
+    UiQueue.runLater(() -> {
       String[] packet = communication.split(" ");
       String request = packet[0];
       String content = "";
@@ -392,7 +391,7 @@ public class LobbyScene extends BaseScene {
           break;
           // Message received
         case "MSG":
-          Multimedia.playAudioFile("message.wav");
+          gameWindow.getMultimedia().playAudioFile("message.wav");
           var message = new Label(content);
           message.getStyleClass().setAll("messages");
           chatBox.getChildren().add(message);
@@ -16,7 +16,6 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
-import uk.ac.soton.comp1206.ui.Multimedia;
 
 /**
  * The Login scene. Holds the UI for creating a username in order to view the player scores
@@ -54,7 +53,7 @@ public class LoginScene extends BaseScene {
    */
   @Override
   public void initialise() {
-    Multimedia.playMusicFile("end.wav");
+    gameWindow.getMultimedia().playMusicFile("end.wav");
     game.cancelLoopTimer();
     logger.info("Initialising Login");
     // Close scene if escape pressed
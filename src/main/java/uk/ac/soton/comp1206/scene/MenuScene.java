@@ -1,7 +1,10 @@
 package uk.ac.soton.comp1206.scene;
 
+import javafx.animation.Animation;
 import javafx.animation.PathTransition;
 import javafx.animation.PathTransition.OrientationType;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -10,7 +13,6 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -22,9 +24,11 @@ import javafx.scene.shape.Path;
 import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.ActivityManager;
+import uk.ac.soton.comp1206.ui.AssetCache;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
-import uk.ac.soton.comp1206.ui.Multimedia;
+import uk.ac.soton.comp1206.ui.RenderQuality;
 
 /**
  * The main menu of the game. Provides a gateway to the rest of the game.
@@ -36,6 +40,16 @@ public class MenuScene extends BaseScene {
      */
     private static final Logger logger = LogManager.getLogger(MenuScene.class);
 
+    /**
+     * The transition moving the title image, or null if the image could not be loaded
+     */
+    private PathTransition transition;
+
+    /**
+     * Pauses the title transition below High render quality or while the game is inactive, and resumes it after
+     */
+    private final InvalidationListener decorationListener = observable -> followDecoration();
+
     /**
      * Create a new menu scene
      * @param gameWindow the Game Window this will be displayed in
@@ -63,16 +77,15 @@ public class MenuScene extends BaseScene {
         root.getChildren().add(menuPane);
 
         try {
-            // TetrECS image component
-            var imgTetrecs = new Image(
-                String.valueOf(this.getClass().getResource("/images/TetrECS.png")));
+            // TetrECS image component, decoded at twice the size shown rather than its full 4552 pixels wide
+            var imgTetrecs = AssetCache.image("TetrECS.png", 1000, 200);
             var view = new ImageView(imgTetrecs);
             view.setFitWidth(500);
             view.setFitHeight(100);
             view.setOpacity(0.5);
 
             // Transition for image to move
-            var transition = new PathTransition();
+            transition = new PathTransition();
             transition.setDuration(Duration.millis(10000));
             transition.setNode(view);
             var path = new Path();
@@ -83,6 +96,9 @@ public class MenuScene extends BaseScene {
             transition.setCycleCount(4);
             transition.setAutoReverse(true);
             transition.play();
+            followDecoration();
+            RenderQuality.qualityProperty().addListener(new WeakInvalidationListener(decorationListener));
+            ActivityManager.activeProperty().addListener(new WeakInvalidationListener(decorationListener));
 
             StackPane.setMargin(view, new Insets(50, 150, 470, 150));
             menuPane.getChildren().add(view);
@@ -143,13 +159,30 @@ public class MenuScene extends BaseScene {
         btnMultiplayerGame.setOnAction(this::startMultiplayerGame);
     }
 
+    /**
+     * Pause the title transition when the render quality drops decoration or the game is inactive, and resume it from
+     * where it was when both come back
+     */
+    private void followDecoration() {
+        if (transition == null) {
+            return;
+        }
+        boolean shown = RenderQuality.get().showsDecoration() && ActivityManager.isActive();
+        if (!shown && transition.getStatus() == Animation.Status.RUNNING) {
+            transition.pause();
+        }
+        else if (shown && transition.getStatus() == Animation.Status.PAUSED) {
+            transition.play();
+        }
+    }
+
     /**
      * Initialise the menu
      */
     @Override
     public void initialise() {
         logger.info("Initialising Menu");
-        Multimedia.playMusicFile("menu.mp3");
+        gameWindow.getMultimedia().playMusicFile("menu.mp3");
         // Close scene when escape pressed
         this.getScene().setOnKeyPressed(keyEvent -> {
             if (keyEvent.getCode() == KeyCode.ESCAPE) {
@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
-import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
@@ -16,6 +15,7 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.UiQueue;
 
 /**
  * The Multiplayer scene. Holds the UI for playing the game over multiple players.
@@ -78,6 +78,7 @@ public class MultiplayerScene extends ChallengeScene {
 
     // Create multiplayer game
     multiGame = new MultiplayerGame(5, 5);
+    multiGame.setMultimedia(gameWindow.getMultimedia());
     game = multiGame;
 
     players = new ArrayList<>();
@@ -138,7 +139,7 @@ public class MultiplayerScene extends ChallengeScene {
 
         // When player dies
         if (game.livesProperty().get() < 0){
-          Platform.runLater(() -> {
+          UiQueue.runLater(() -> {
             communicator.send("DIE");
             gameWindow.cleanup();
 
@@ -154,7 +155,7 @@ public class MultiplayerScene extends ChallengeScene {
         String blockList = "";
         for (int y = 0; y < 5; y++) {
           for (int x = 0; x < 5; x++) {
-            blockList += gameBoard.getBlock(x, y).getValue() + " ";
+            blockList += game.getGrid().get(x, y) + " ";
           }
         }
         communicator.send("BOARD " + blockList);
@@ -167,7 +168,7 @@ public class MultiplayerScene extends ChallengeScene {
    * Handle the messages received from the server
    */
   private void setListener() {
-    gameWindow.getCommunicator().addListener(communication -> Platform.runLater(() -> {
+    gameWindow.getCommunicator().addListener(communication -> UiQueue.runLater(() -> {
       String[] packet = communication.split(" ");
       String request = packet[0];
       String content = "";
@@ -8,7 +8,6 @@ import java.io.FileReader;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
-import javafx.application.Platform;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -26,8 +25,8 @@ import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 import uk.ac.soton.comp1206.ui.Leaderboard;
-import uk.ac.soton.comp1206.ui.Multimedia;
 import uk.ac.soton.comp1206.ui.ScoresList;
+import uk.ac.soton.comp1206.ui.UiQueue;
 
 /**
  * The Scores scene. Holds the UI for displaying local and online scores
@@ -124,7 +123,7 @@ public class ScoresScene extends BaseScene {
   public void initialise() {
     logger.info("Initialising Scores");
     game.cancelLoopTimer();
-    Multimedia.playMusicFile("end.wav");
+    gameWindow.getMultimedia().playMusicFile("end.wav");
     // Close scene when escape pressed
     this.getScene().setOnKeyPressed(keyEvent -> {
       if (keyEvent.getCode() == KeyCode.ESCAPE) {
@@ -162,7 +161,7 @@ public class ScoresScene extends BaseScene {
       String[] message = communication.split(" ");
       // High scores
       if (message[0].equals("HISCORES")) {
-        Platform.runLater(() -> {
+        UiQueue.runLater(() -> {
           int count = 0;
           for (Pair<String, Integer> pair : loadOnlineScores(communication)) {
             changeRemoteScore(pair);
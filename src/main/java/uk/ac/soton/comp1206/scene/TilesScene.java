@@ -3,16 +3,15 @@ package uk.ac.soton.comp1206.scene;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Rectangle;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.AssetCache;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -94,111 +93,96 @@ public class TilesScene extends BaseScene {
     try {
 
       // Top pieces
-      var imgPiece0 = new Image(String.valueOf(this.getClass().getResource("/images/piece0.png")));
       var piece0 = new Rectangle();
       piece0.setHeight(120);
       piece0.setWidth(120);
-      piece0.setFill(new ImagePattern(imgPiece0));
+      AssetCache.fill(piece0, "piece0.png");
       top.getChildren().add(piece0);
 
-      var imgPiece1 = new Image(String.valueOf(this.getClass().getResource("/images/piece1.png")));
       var piece1 = new Rectangle();
       piece1.setHeight(120);
       piece1.setWidth(120);
-      piece1.setFill(new ImagePattern(imgPiece1));
+      AssetCache.fill(piece1, "piece1.png");
       top.getChildren().add(piece1);
 
-      var imgPiece2 = new Image(String.valueOf(this.getClass().getResource("/images/piece2.png")));
       var piece2 = new Rectangle();
       piece2.setHeight(120);
       piece2.setWidth(120);
-      piece2.setFill(new ImagePattern(imgPiece2));
+      AssetCache.fill(piece2, "piece2.png");
       top.getChildren().add(piece2);
 
-      var imgPiece3 = new Image(String.valueOf(this.getClass().getResource("/images/piece3.png")));
       var piece3 = new Rectangle();
       piece3.setHeight(120);
       piece3.setWidth(120);
-      piece3.setFill(new ImagePattern(imgPiece3));
+      AssetCache.fill(piece3, "piece3.png");
       top.getChildren().add(piece3);
 
-      var imgPiece4 = new Image(String.valueOf(this.getClass().getResource("/images/piece4.png")));
       var piece4 = new Rectangle();
       piece4.setHeight(120);
       piece4.setWidth(120);
-      piece4.setFill(new ImagePattern(imgPiece4));
+      AssetCache.fill(piece4, "piece4.png");
       top.getChildren().add(piece4);
 
       // Center pieces
-      var imgPiece5 = new Image(String.valueOf(this.getClass().getResource("/images/piece5.png")));
       var piece5 = new Rectangle();
       piece5.setHeight(120);
       piece5.setWidth(120);
-      piece5.setFill(new ImagePattern(imgPiece5));
+      AssetCache.fill(piece5, "piece5.png");
       center.getChildren().add(piece5);
 
-      var imgPiece6 = new Image(String.valueOf(this.getClass().getResource("/images/piece6.png")));
       var piece6 = new Rectangle();
       piece6.setHeight(120);
       piece6.setWidth(120);
-      piece6.setFill(new ImagePattern(imgPiece6));
+      AssetCache.fill(piece6, "piece6.png");
       center.getChildren().add(piece6);
 
-      var imgPiece7 = new Image(String.valueOf(this.getClass().getResource("/images/piece7.png")));
       var piece7 = new Rectangle();
       piece7.setHeight(120);
       piece7.setWidth(120);
-      piece7.setFill(new ImagePattern(imgPiece7));
+      AssetCache.fill(piece7, "piece7.png");
       center.getChildren().add(piece7);
 
-      var imgPiece8 = new Image(String.valueOf(this.getClass().getResource("/images/piece8.png")));
       var piece8 = new Rectangle();
       piece8.setHeight(120);
       piece8.setWidth(120);
-      piece8.setFill(new ImagePattern(imgPiece8));
+      AssetCache.fill(piece8, "piece8.png");
       center.getChildren().add(piece8);
 
-      var imgPiece9 = new Image(String.valueOf(this.getClass().getResource("/images/piece9.png")));
       var piece9 = new Rectangle();
       piece9.setHeight(120);
       piece9.setWidth(120);
-      piece9.setFill(new ImagePattern(imgPiece9));
+      AssetCache.fill(piece9, "piece9.png");
       center.getChildren().add(piece9);
 
       // Bottom pieces
-      var imgPiece10 = new Image(String.valueOf(this.getClass().getResource("/images/piece10.png")));
       var piece10 = new Rectangle();
       piece10.setHeight(120);
       piece10.setWidth(120);
-      piece10.setFill(new ImagePattern(imgPiece10));
+      AssetCache.fill(piece10, "piece10.png");
       bottom.getChildren().add(piece10);
 
-      var imgPiece11 = new Image(String.valueOf(this.getClass().getResource("/images/piece11.png")));
       var piece11 = new Rectangle();
       piece11.setHeight(120);
       piece11.setWidth(120);
-      piece11.setFill(new ImagePattern(imgPiece11));
+      AssetCache.fill(piece11, "piece11.png");
       bottom.getChildren().add(piece11);
 
-      var imgPiece12 = new Image(String.valueOf(this.getClass().getResource("/images/piece12.png")));
       var piece12 = new Rectangle();
       piece12.setHeight(120);
       piece12.setWidth(120);
-      piece12.setFill(new ImagePattern(imgPiece12));
+      AssetCache.fill(piece12, "piece12.png");
       bottom.getChildren().add(piece12);
 
-      var imgPiece13 = new Image(String.valueOf(this.getClass().getResource("/images/piece13.png")));
       var piece13 = new Rectangle();
       piece13.setHeight(120);
       piece13.setWidth(120);
-      piece13.setFill(new ImagePattern(imgPiece13));
+      AssetCache.fill(piece13, "piece13.png");
       bottom.getChildren().add(piece13);
 
-      var imgPiece14 = new Image(String.valueOf(this.getClass().getResource("/images/piece14.png")));
       var piece14 = new Rectangle();
       piece14.setHeight(120);
       piece14.setWidth(120);
-      piece14.setFill(new ImagePattern(imgPiece14));
+      AssetCache.fill(piece14, "piece14.png");
       bottom.getChildren().add(piece14);
     }
     catch (Exception e) {
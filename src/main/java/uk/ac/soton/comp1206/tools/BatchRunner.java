@@ -0,0 +1,440 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import uk.ac.soton.comp1206.ai.Episode;
+import uk.ac.soton.comp1206.ai.Policies;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * Batch runner for very large simulation campaigns. It forks worker JVMs on this machine, gives each a disjoint range
+ * of seeds, and has each write its results to a binary shard file. Once they have all finished, the shards are merged
+ * into score and move histograms, from which the percentiles are read. Separate JVMs keep each heap small, so the
+ * campaign is not held back by one large heap and its garbage collection.
+ *
+ * Arguments (all optional): games (default 10000), workers (default one per core), policy (default heuristic), board
+ * size (default 5), shard directory (default batch-shards). The heap of each worker is set with
+ * -Dtetrecs.batch.workerHeap (default 256m). Workers get the --add-modules and -D options of this JVM, and if one
+ * fails the others are stopped.
+ *
+ * It also runs as a worker, with --worker policy size firstSeed games shardFile, and merges existing shards on its
+ * own, with --merge shardFile...
+ */
+public class BatchRunner {
+
+    /**
+     * Marks the start of a shard file ("TETB")
+     */
+    private static final int MAGIC = 0x54455442;
+
+    /**
+     * Version of the shard format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Most pieces played in one game
+     */
+    private static final int MAX_MOVES = 300;
+
+    /**
+     * Seed of the first game of the campaign; game i uses this plus i
+     */
+    private static final long BASE_SEED = 35_000;
+
+    /**
+     * Width of a score bucket; every score is a multiple of ten, so the histogram is exact
+     */
+    private static final int SCORE_BUCKET = 10;
+
+    /**
+     * Run a campaign, a worker or a merge
+     * @param args see the class description
+     * @throws Exception if a worker fails or a shard cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("tetrecs.logLevel", "warn");
+        if (args.length > 0 && args[0].equals("--worker")) {
+            work(args[1], Integer.parseInt(args[2]), Long.parseLong(args[3]), Integer.parseInt(args[4]),
+                Path.of(args[5]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--merge")) {
+            List<Path> shards = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                shards.add(Path.of(args[i]));
+            }
+            merge(shards).print();
+            return;
+        }
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String policy = args.length > 2 ? args[2] : "heuristic";
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        Path directory = Path.of(args.length > 4 ? args[4] : "batch-shards");
+        Policies.create(policy, 0);
+        Files.createDirectories(directory);
+        System.out.printf("Playing %d %dx%d games with %s on %d worker JVMs%n", games, size, size, policy, workers);
+
+        // Fork the workers, each with its own range of seeds
+        long start = System.nanoTime();
+        List<Process> processes = new ArrayList<>();
+        List<Path> shards = new ArrayList<>();
+        try {
+            for (int worker = 0; worker < workers; worker++) {
+                int first = (int) ((long) games * worker / workers);
+                int count = (int) ((long) games * (worker + 1) / workers) - first;
+                Path shard = directory.resolve(String.format("shard-%03d.bin", worker));
+                Files.deleteIfExists(shard);
+                shards.add(shard);
+                processes.add(new ProcessBuilder(workerCommand(policy, size, BASE_SEED + first, count, shard))
+                    .inheritIO().start());
+            }
+            waitForWorkers(processes);
+        }
+        finally {
+            // After a failure, the campaign is lost, so stop the workers still playing
+            for (Process process : processes) {
+                if (process.isAlive()) {
+                    process.destroy();
+                }
+            }
+        }
+        System.out.printf("Workers finished in %.1fs%n", (System.nanoTime() - start) / 1e9);
+        merge(shards).print();
+    }
+
+    /**
+     * Wait for every worker to finish, in whatever order they do, stopping at the first that fails
+     * @param processes worker processes, by worker number
+     * @throws IOException if a worker fails
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void waitForWorkers(List<Process> processes) throws IOException, InterruptedException {
+        List<Integer> running = new ArrayList<>();
+        for (int worker = 0; worker < processes.size(); worker++) {
+            running.add(worker);
+        }
+        while (!running.isEmpty()) {
+            var exits = running.stream().map(worker -> processes.get(worker).onExit())
+                .toArray(CompletableFuture[]::new);
+            try {
+                CompletableFuture.anyOf(exits).get();
+            }
+            catch (ExecutionException e) {
+                throw new IOException("Cannot wait for the workers", e.getCause());
+            }
+            for (var iterator = running.iterator(); iterator.hasNext();) {
+                int worker = iterator.next();
+                Process process = processes.get(worker);
+                if (!process.isAlive()) {
+                    iterator.remove();
+                    if (process.exitValue() != 0) {
+                        throw new IOException("Worker " + worker + " failed with exit code " + process.exitValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the command line of a worker JVM, running this class from the same module or class path, with the
+     * modules and system properties this JVM was started with, so options such as the Vector API carry over
+     * @param policy name of the policy to play
+     * @param size board size
+     * @param firstSeed seed of the first game
+     * @param games number of games
+     * @param shard shard file to write
+     * @return command line
+     */
+    private static List<String> workerCommand(String policy, int size, long firstSeed, int games, Path shard) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + System.getProperty("tetrecs.batch.workerHeap", "256m"));
+        List<String> options = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i);
+            if (option.startsWith("--add-modules=") || option.startsWith("-D")) {
+                command.add(option);
+            }
+            else if (option.equals("--add-modules") && i + 1 < options.size()) {
+                command.add(option);
+                command.add(options.get(++i));
+            }
+        }
+        String modulePath = System.getProperty("jdk.module.path");
+        if (modulePath != null) {
+            command.addAll(List.of("-p", modulePath, "-m",
+                BatchRunner.class.getModule().getName() + "/" + BatchRunner.class.getName()));
+        }
+        else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), BatchRunner.class.getName()));
+        }
+        command.addAll(List.of("--worker", policy, Integer.toString(size), Long.toString(firstSeed),
+            Integer.toString(games), shard.toString()));
+        return command;
+    }
+
+    /**
+     * Play a range of seeds and write the results to a shard
+     * @param policy name of the policy to play
+     * @param size board size
+     * @param firstSeed seed of the first game
+     * @param games number of games
+     * @param shard shard file to write
+     * @throws IOException if the shard cannot be written
+     */
+    private static void work(String policy, int size, long firstSeed, int games, Path shard) throws IOException {
+        var results = new Results(policy, size);
+        var player = Policies.create(policy, firstSeed);
+        for (int game = 0; game < games; game++) {
+            var simulation = new Simulation(size, size, firstSeed + game);
+            results.add(Episode.play(simulation, player, MAX_MOVES), simulation.getMoves());
+        }
+        results.ranges.add(new long[] {firstSeed, games});
+        results.write(shard);
+    }
+
+    /**
+     * Merge shards, checking they come from the same campaign and cover disjoint seeds
+     * @param shards shard files
+     * @return merged results
+     * @throws IOException if a shard cannot be read or does not match the others
+     */
+    private static Results merge(List<Path> shards) throws IOException {
+        Results merged = null;
+        for (Path shard : shards) {
+            var results = Results.read(shard);
+            if (merged == null) {
+                merged = results;
+            }
+            else {
+                merged.add(results, shard);
+            }
+        }
+        if (merged == null) {
+            throw new IOException("No shards to merge");
+        }
+        return merged;
+    }
+
+    /**
+     * Results of a set of games: histograms of the scores and moves, and the seed ranges they were played on
+     */
+    private static class Results {
+
+        /**
+         * Name of the policy played
+         */
+        private final String policy;
+
+        /**
+         * Board size played on
+         */
+        private final int size;
+
+        /**
+         * Ranges of seeds played, each as the first seed and the number of games
+         */
+        private final List<long[]> ranges = new ArrayList<>();
+
+        /**
+         * Number of games with each score, by score bucket
+         */
+        private long[] scores = new long[64];
+
+        /**
+         * Number of games with each number of moves
+         */
+        private long[] moves = new long[MAX_MOVES + 1];
+
+        /**
+         * Create empty results
+         * @param policy name of the policy played
+         * @param size board size played on
+         */
+        private Results(String policy, int size) {
+            this.policy = policy;
+            this.size = size;
+        }
+
+        /**
+         * Add a game
+         * @param score final score
+         * @param played pieces played
+         */
+        private void add(int score, int played) {
+            int bucket = score / SCORE_BUCKET;
+            if (bucket >= scores.length) {
+                scores = Arrays.copyOf(scores, Math.max(bucket + 1, scores.length * 2));
+            }
+            scores[bucket]++;
+            moves[Math.min(played, MAX_MOVES)]++;
+        }
+
+        /**
+         * Add the results of another shard
+         * @param other results to add
+         * @param shard file the results came from, for error messages
+         * @throws IOException if the results are of another campaign or overlap these
+         */
+        private void add(Results other, Path shard) throws IOException {
+            if (!other.policy.equals(policy) || other.size != size) {
+                throw new IOException(shard + " holds " + other.policy + " on " + other.size + "x" + other.size
+                    + " but expected " + policy + " on " + size + "x" + size);
+            }
+            for (long[] range : other.ranges) {
+                for (long[] existing : ranges) {
+                    if (range[0] < existing[0] + existing[1] && existing[0] < range[0] + range[1]) {
+                        throw new IOException(shard + " overlaps seeds already merged from " + existing[0]);
+                    }
+                }
+            }
+            ranges.addAll(other.ranges);
+            if (other.scores.length > scores.length) {
+                scores = Arrays.copyOf(scores, other.scores.length);
+            }
+            for (int i = 0; i < other.scores.length; i++) {
+                scores[i] += other.scores[i];
+            }
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] += other.moves[i];
+            }
+        }
+
+        /**
+         * Print the number of games, mean and percentiles
+         */
+        private void print() {
+            long games = Arrays.stream(moves).sum();
+            System.out.printf("%s on %dx%d: %d games over %d shards%n", policy, size, size, games, ranges.size());
+            System.out.printf("%-8s %10s %10s %10s %10s %10s %10s%n", "", "mean", "p50", "p90", "p99", "p99.9",
+                "max");
+            print("score", scores, SCORE_BUCKET, games);
+            print("moves", moves, 1, games);
+        }
+
+        /**
+         * Print the mean and percentiles of a histogram
+         * @param name name of the row
+         * @param histogram number of games in each bucket
+         * @param width width of a bucket
+         * @param games total number of games
+         */
+        private static void print(String name, long[] histogram, int width, long games) {
+            double sum = 0;
+            int max = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                sum += (double) histogram[i] * i * width;
+                if (histogram[i] > 0) {
+                    max = i * width;
+                }
+            }
+            System.out.printf("%-8s %10.1f %10d %10d %10d %10d %10d%n", name, sum / Math.max(1, games),
+                percentile(histogram, width, games, 0.5), percentile(histogram, width, games, 0.9),
+                percentile(histogram, width, games, 0.99), percentile(histogram, width, games, 0.999), max);
+        }
+
+        /**
+         * Read a percentile from a histogram
+         * @param histogram number of games in each bucket
+         * @param width width of a bucket
+         * @param games total number of games
+         * @param fraction fraction of games at or below the percentile
+         * @return value of the percentile
+         */
+        private static int percentile(long[] histogram, int width, long games, double fraction) {
+            long rank = (long) Math.ceil(fraction * games);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= rank && seen > 0) {
+                    return i * width;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Write these results to a shard, replacing any previous one only once the new one is complete
+         * @param path shard file
+         * @throws IOException if the file cannot be written
+         */
+        private void write(Path path) throws IOException {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(policy);
+                out.writeInt(size);
+                out.writeInt(ranges.size());
+                for (long[] range : ranges) {
+                    out.writeLong(range[0]);
+                    out.writeLong(range[1]);
+                }
+                for (long[] histogram : List.of(scores, moves)) {
+                    out.writeInt(histogram.length);
+                    for (long count : histogram) {
+                        out.writeLong(count);
+                    }
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Read results from a shard written by write
+         * @param path shard file
+         * @return results
+         * @throws IOException if the file cannot be read or is not a shard
+         */
+        private static Results read(Path path) throws IOException {
+            try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException(path + " is not a batch shard");
+                }
+                var results = new Results(in.readUTF(), in.readInt());
+                int ranges = in.readInt();
+                for (int i = 0; i < ranges; i++) {
+                    results.ranges.add(new long[] {in.readLong(), in.readLong()});
+                }
+                results.scores = readHistogram(in);
+                results.moves = readHistogram(in);
+                if (results.moves.length != MAX_MOVES + 1) {
+                    throw new IOException(path + " was written with a different move limit");
+                }
+                return results;
+            }
+        }
+
+        /**
+         * Read one histogram of a shard
+         * @param in stream positioned at the histogram
+         * @return histogram
+         * @throws IOException if the stream cannot be read
+         */
+        private static long[] readHistogram(DataInputStream in) throws IOException {
+            long[] histogram = new long[in.readInt()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = in.readLong();
+            }
+            return histogram;
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GameHost;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Soak test hosting many headless games in one JVM on a single shared GameHost, each played by a random bot. Reports
+ * the heap retained per game and the CPU spent per move, and fails if either is over its target.
+ *
+ * Arguments (all optional): number of games (default 1000), seconds to run (default 60), milliseconds between the
+ * moves of each bot (default 250).
+ */
+public class GameSoakTest {
+
+    /**
+     * Target heap retained by one running game, in bytes
+     */
+    private static final long TARGET_BYTES_PER_GAME = 16 * 1024;
+
+    /**
+     * Target CPU time spent on one attempted move, including the game timers, in microseconds
+     */
+    private static final double TARGET_MICROS_PER_MOVE = 50;
+
+    /**
+     * Seconds to let the games run before measuring, so start-up and compilation are not counted
+     */
+    private static final int WARM_UP_SECONDS = 5;
+
+    /**
+     * Number of moves played
+     */
+    private static final LongAdder moves = new LongAdder();
+
+    /**
+     * Number of times a bot looked for a move
+     */
+    private static final LongAdder ticks = new LongAdder();
+
+    /**
+     * Number of games played to the end and restarted
+     */
+    private static final LongAdder finished = new LongAdder();
+
+    /**
+     * Run the soak test
+     * @param args number of games, seconds to run and milliseconds between moves
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException {
+        // Per-move logging would swamp the measurement
+        System.setProperty("tetrecs.logLevel", "warn");
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int interval = args.length > 2 ? Integer.parseInt(args[2]) : 250;
+
+        var host = GameHost.headless();
+        long heapBefore = usedHeap();
+
+        // Create and start every game, each with its own bot
+        List<AtomicReference<Game>> slots = new ArrayList<>(games);
+        List<ScheduledFuture<?>> bots = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            var slot = new AtomicReference<>(newGame(host));
+            slots.add(slot);
+            bots.add(host.getScheduler().scheduleAtFixedRate(() -> move(host, slot),
+                ThreadLocalRandom.current().nextInt(interval), interval, TimeUnit.MILLISECONDS));
+        }
+        long bytesPerGame = (usedHeap() - heapBefore) / games;
+
+        // Let the games run
+        Thread.sleep(WARM_UP_SECONDS * 1000L);
+        long cpuBefore = cpuTime();
+        long wallBefore = System.nanoTime();
+        long movesBefore = moves.sum();
+        long ticksBefore = ticks.sum();
+        Thread.sleep(seconds * 1000L);
+        long cpu = cpuTime() - cpuBefore;
+        long wall = System.nanoTime() - wallBefore;
+        long played = moves.sum() - movesBefore;
+        long looked = ticks.sum() - ticksBefore;
+
+        bots.forEach(bot -> bot.cancel(false));
+        slots.forEach(slot -> slot.get().cancelLoopTimer());
+        host.shutdown();
+
+        // Bots that find the board full still cost a search, so charge the CPU to every attempt
+        double microsPerMove = looked == 0 ? 0 : cpu / 1000.0 / looked;
+        double coresUsed = cpu / (double) wall;
+        System.out.printf("games:              %d on %d threads%n", games, Runtime.getRuntime().availableProcessors());
+        System.out.printf("moves:              %d played of %d attempted (%.0f/s), %d games finished%n", played,
+            looked, looked * 1e9 / wall, finished.sum());
+        System.out.printf("heap per game:      %d bytes (target %d)%n", bytesPerGame, TARGET_BYTES_PER_GAME);
+        System.out.printf("cpu per move:       %.1f us (target %.0f)%n", microsPerMove, TARGET_MICROS_PER_MOVE);
+        System.out.printf("cpu per game:       %.4f%% of a core%n", coresUsed * 100 / games);
+
+        boolean passed = bytesPerGame <= TARGET_BYTES_PER_GAME && microsPerMove <= TARGET_MICROS_PER_MOVE;
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Create and start a headless game
+     * @param host host to run the game on
+     * @return game
+     */
+    private static Game newGame(GameHost host) {
+        var game = new Game(5, 5, host);
+        game.start();
+        return game;
+    }
+
+    /**
+     * Play a random legal move in the game of the slot, restarting the game once it is over
+     * @param host host the game runs on
+     * @param slot slot holding the game
+     */
+    private static void move(GameHost host, AtomicReference<Game> slot) {
+        ticks.increment();
+        var game = slot.get();
+        if (game.livesProperty().get() < 0) {
+            game.cancelLoopTimer();
+            slot.set(newGame(host));
+            finished.increment();
+            return;
+        }
+
+        // Try every position and rotation, starting from a random one
+        Random random = ThreadLocalRandom.current();
+        int cells = game.getCols() * game.getRows();
+        int options = cells * GamePiece.ROTATIONS;
+        int start = random.nextInt(options);
+        for (int i = 0; i < options; i++) {
+            int option = (start + i) % options;
+            int rotation = option / cells;
+            int x = option % cells % game.getCols();
+            int y = option % cells / game.getCols();
+            if (game.getGrid().canPlayPiece(game.getCurrentPiece(), rotation, x, y)) {
+                while (game.getCurrentRotation() != rotation) {
+                    game.rotateCurrentPiece(false);
+                }
+                if (game.playPiece(x, y)) {
+                    moves.increment();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the heap in use after a full collection
+     * @return bytes in use
+     */
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Get the CPU time used by all live threads
+     * @return nanoseconds
+     */
+    private static long cpuTime() {
+        var threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long id : threads.getAllThreadIds()) {
+            long time = threads.getThreadCpuTime(id);
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,275 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import uk.ac.soton.comp1206.ai.BoardEvaluator;
+import uk.ac.soton.comp1206.ai.Episode;
+import uk.ac.soton.comp1206.ai.HeuristicPolicy;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * Evolutionary tuner for the weights of the BoardEvaluator. Each generation, every candidate weight vector plays the
+ * same fixed set of seeded games with a HeuristicPolicy, spread over all cores, and its fitness is the mean score. The
+ * best quarter is kept and the rest of the next generation is bred from it by crossover and mutation.
+ *
+ * Progress is checkpointed to disk after every generation, and a run started with an existing checkpoint carries on
+ * from it. The best weights found so far are written to the output file, which BoardEvaluator.load reads. The game
+ * and its bots use them when the file is given with -Dtetrecs.weights or copied into the resources.
+ *
+ * Arguments (all optional): generations (default 30), population (default 24), games per candidate (default 32),
+ * checkpoint file (default tuner-checkpoint.txt), output file (default heuristic-weights.txt).
+ */
+public class HeuristicTuner {
+
+    /**
+     * Size of the simulated board
+     */
+    private static final int BOARD_SIZE = 5;
+
+    /**
+     * Most pieces played in one game, so a strong candidate cannot play forever
+     */
+    private static final int MAX_MOVES = 300;
+
+    /**
+     * Seed of the first game every candidate plays; game i uses this plus i
+     */
+    private static final long BASE_SEED = 20_061;
+
+    /**
+     * Seed of the breeding random source; generation g uses this plus g, so resumed runs breed the same way
+     */
+    private static final long BREEDING_SEED = 1206;
+
+    /**
+     * Starting size of a mutation, relative to the size of the weight
+     */
+    private static final double INITIAL_SIGMA = 0.5;
+
+    /**
+     * How much the mutation size shrinks every generation
+     */
+    private static final double SIGMA_DECAY = 0.93;
+
+    /**
+     * Smallest mutation size
+     */
+    private static final double MIN_SIGMA = 0.05;
+
+    /**
+     * Run the tuner
+     * @param args generations, population, games per candidate, checkpoint file and output file
+     * @throws Exception if the checkpoint cannot be read or written, a game fails, or the population is under 2
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("tetrecs.logLevel", "warn");
+        int generations = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int populationSize = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        Path checkpoint = Path.of(args.length > 3 ? args[3] : "tuner-checkpoint.txt");
+        Path output = Path.of(args.length > 4 ? args[4] : "heuristic-weights.txt");
+        if (populationSize < 2) {
+            throw new IllegalArgumentException("Population must be at least 2 to breed, but was " + populationSize);
+        }
+
+        // Start from the checkpoint if there is one
+        var state = Files.exists(checkpoint) ? State.load(checkpoint) : State.initial(populationSize);
+        if (state.population.size() < 2) {
+            throw new IllegalArgumentException("Checkpoint " + checkpoint + " holds " + state.population.size()
+                + " candidates, but at least 2 are needed to breed");
+        }
+        System.out.printf("Tuning from generation %d with %d candidates, %d games each, on %d cores%n",
+            state.generation, state.population.size(), games, Runtime.getRuntime().availableProcessors());
+
+        var pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            while (state.generation < generations) {
+                long start = System.nanoTime();
+                double[] fitness = evaluate(pool, state.population, games);
+
+                // Rank the candidates, best first
+                Integer[] order = new Integer[fitness.length];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, Comparator.comparingDouble(i -> -fitness[i]));
+                if (fitness[order[0]] > state.bestFitness) {
+                    state.bestFitness = fitness[order[0]];
+                    state.best = state.population.get(order[0]).clone();
+                    BoardEvaluator.save(output, state.best);
+                }
+                System.out.printf("generation %3d: best %.1f, median %.1f, best ever %.1f (%.1fs)%n",
+                    state.generation, fitness[order[0]], fitness[order[order.length / 2]], state.bestFitness,
+                    (System.nanoTime() - start) / 1e9);
+
+                state.population = breed(state, order);
+                state.generation++;
+                state.sigma = Math.max(MIN_SIGMA, state.sigma * SIGMA_DECAY);
+                state.save(checkpoint);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+        System.out.println("Best weights (" + String.join(" ", BoardEvaluator.NAMES) + "): "
+            + BoardEvaluator.format(state.best));
+    }
+
+    /**
+     * Play every candidate on the same seeded games, in parallel
+     * @param pool pool to play the games on
+     * @param population candidate weights
+     * @param games games per candidate
+     * @return mean score of each candidate
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if a game fails
+     */
+    private static double[] evaluate(ForkJoinPool pool, List<double[]> population, int games)
+        throws InterruptedException, ExecutionException {
+        int[] scores = new int[population.size() * games];
+        pool.submit(() -> IntStream.range(0, scores.length).parallel().forEach(task -> {
+            int candidate = task / games;
+            var simulation = new Simulation(BOARD_SIZE, BOARD_SIZE, BASE_SEED + task % games);
+            scores[task] = Episode.play(simulation, new HeuristicPolicy(population.get(candidate)), MAX_MOVES);
+        })).get();
+
+        double[] fitness = new double[population.size()];
+        for (int task = 0; task < scores.length; task++) {
+            fitness[task / games] += scores[task] / (double) games;
+        }
+        return fitness;
+    }
+
+    /**
+     * Breed the next generation: keep the best quarter and fill the rest with mutated crossovers of them
+     * @param state state of the tuner
+     * @param order candidates, best first
+     * @return next generation
+     */
+    private static List<double[]> breed(State state, Integer[] order) {
+        var random = new Random(BREEDING_SEED + state.generation);
+        int size = state.population.size();
+        int elites = Math.max(2, size / 4);
+        List<double[]> next = new ArrayList<>(size);
+        for (int i = 0; i < elites; i++) {
+            next.add(state.population.get(order[i]));
+        }
+        while (next.size() < size) {
+            double[] mother = state.population.get(order[random.nextInt(elites)]);
+            double[] father = state.population.get(order[random.nextInt(elites)]);
+            double[] child = new double[BoardEvaluator.FEATURES];
+            for (int i = 0; i < child.length; i++) {
+                child[i] = random.nextBoolean() ? mother[i] : father[i];
+                child[i] += random.nextGaussian() * state.sigma * Math.max(1, Math.abs(child[i]));
+            }
+            next.add(child);
+        }
+        return next;
+    }
+
+    /**
+     * The state of the tuner, as saved in a checkpoint
+     */
+    private static class State {
+
+        /**
+         * The generation about to be evaluated
+         */
+        private int generation;
+
+        /**
+         * The current mutation size
+         */
+        private double sigma = INITIAL_SIGMA;
+
+        /**
+         * The best fitness found so far
+         */
+        private double bestFitness = Double.NEGATIVE_INFINITY;
+
+        /**
+         * The best weights found so far
+         */
+        private double[] best = BoardEvaluator.defaultWeights();
+
+        /**
+         * The candidates of the generation about to be evaluated
+         */
+        private List<double[]> population = new ArrayList<>();
+
+        /**
+         * Create the first generation: the default weights and mutations of them
+         * @param size number of candidates
+         * @return state
+         */
+        private static State initial(int size) {
+            var state = new State();
+            var random = new Random(BREEDING_SEED);
+            state.population.add(BoardEvaluator.defaultWeights());
+            while (state.population.size() < size) {
+                double[] candidate = BoardEvaluator.defaultWeights();
+                for (int i = 0; i < candidate.length; i++) {
+                    candidate[i] += random.nextGaussian() * INITIAL_SIGMA * Math.max(1, Math.abs(candidate[i]));
+                }
+                state.population.add(candidate);
+            }
+            return state;
+        }
+
+        /**
+         * Read a checkpoint
+         * @param path checkpoint file
+         * @return state
+         * @throws IOException if the file cannot be read
+         */
+        private static State load(Path path) throws IOException {
+            var state = new State();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(" ", 2);
+                switch (parts[0]) {
+                    case "generation" -> state.generation = Integer.parseInt(parts[1]);
+                    case "sigma" -> state.sigma = Double.parseDouble(parts[1]);
+                    case "best" -> {
+                        String[] best = parts[1].split(" ", 2);
+                        state.bestFitness = Double.parseDouble(best[0]);
+                        state.best = BoardEvaluator.parse(best[1]);
+                    }
+                    case "candidate" -> state.population.add(BoardEvaluator.parse(parts[1]));
+                    default -> { }
+                }
+            }
+            return state;
+        }
+
+        /**
+         * Write a checkpoint, replacing the previous one only once the new one is complete
+         * @param path checkpoint file
+         * @throws IOException if the file cannot be written
+         */
+        private void save(Path path) throws IOException {
+            var lines = new StringBuilder();
+            lines.append("generation ").append(generation).append('\n');
+            lines.append("sigma ").append(sigma).append('\n');
+            lines.append("best ").append(bestFitness).append(' ').append(BoardEvaluator.format(best)).append('\n');
+            for (double[] candidate : population) {
+                lines.append("candidate ").append(BoardEvaluator.format(candidate)).append('\n');
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.util.BitSet;
+import java.util.Random;
+import uk.ac.soton.comp1206.game.LineDetector;
+
+/**
+ * Benchmark comparing the scalar and vectorised line detectors on square boards from 5x5 up to 1024x1024, to show
+ * where the vectorised path starts to pay off.
+ *
+ * Run with --add-modules jdk.incubator.vector to include the vectorised detector, otherwise only the scalar one is
+ * measured.
+ */
+public class LineDetectorBenchmark {
+
+    /**
+     * Board sizes to measure
+     */
+    private static final int[] SIZES = {5, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    /**
+     * How long to spend warming up and measuring each case, in nanoseconds
+     */
+    private static final long RUN_NANOS = 200_000_000L;
+
+    /**
+     * Stops the JIT from removing the work being measured
+     */
+    private static long sink;
+
+    /**
+     * Run the benchmark
+     * @param args board sizes to measure, or none for the default sizes
+     */
+    public static void main(String[] args) {
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        var scalar = LineDetector.scalar();
+        var vector = LineDetector.vector();
+        if (vector == null) {
+            System.out.println("Vector API not available, run with --add-modules jdk.incubator.vector");
+        }
+
+        // Compile both detectors on a wide board first, so the vector loops are not profiled as never taken by the
+        // small boards which only reach the scalar tail
+        measure(scalar, board(64, new Random()), 64);
+        if (vector != null) {
+            measure(vector, board(64, new Random()), 64);
+        }
+
+        System.out.printf("%-10s %14s %14s %9s%n", "board", "scalar ns/op", "vector ns/op", "speedup");
+        for (int size : sizes) {
+            int[] cells = board(size, new Random(size));
+            double scalarNanos = measure(scalar, cells, size);
+            if (vector != null) {
+                double vectorNanos = measure(vector, cells, size);
+                System.out.printf("%-10s %14.1f %14.1f %8.2fx%n", size + "x" + size, scalarNanos, vectorNanos,
+                    scalarNanos / vectorNanos);
+            }
+            else {
+                System.out.printf("%-10s %14.1f %14s %9s%n", size + "x" + size, scalarNanos, "-", "-");
+            }
+        }
+        System.out.println(sink == 42 ? "" : "done");
+    }
+
+    /**
+     * Create a nearly full board with one full row and one full column, which is the worst case for detection as
+     * most lines have to be scanned a long way before an empty cell is found
+     * @param size number of rows and columns
+     * @param random random source
+     * @return cells in row-major order
+     */
+    private static int[] board(int size, Random random) {
+        int[] cells = new int[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = 1 + random.nextInt(15);
+        }
+        // Punch one hole into every line at a random position in its second half
+        for (int i = 0; i < size; i++) {
+            cells[i * size + size / 2 + random.nextInt(size - size / 2)] = 0;
+            cells[(size / 2 + random.nextInt(size - size / 2)) * size + i] = 0;
+        }
+        // Make the first row and column full again
+        for (int i = 0; i < size; i++) {
+            cells[i] = 1;
+            cells[i * size] = 1;
+        }
+        return cells;
+    }
+
+    /**
+     * Measure the average time to detect full rows and columns
+     * @param detector detector to measure
+     * @param cells cells in row-major order
+     * @param size number of rows and columns
+     * @return nanoseconds per detection
+     */
+    private static double measure(LineDetector detector, int[] cells, int size) {
+        var rows = new BitSet(size);
+        var cols = new BitSet(size);
+        // Warm up
+        run(detector, cells, size, rows, cols, RUN_NANOS);
+        // Measure
+        long start = System.nanoTime();
+        long ops = run(detector, cells, size, rows, cols, RUN_NANOS);
+        return (System.nanoTime() - start) / (double) ops;
+    }
+
+    /**
+     * Repeatedly detect full lines for the given time
+     * @param detector detector to run
+     * @param cells cells in row-major order
+     * @param size number of rows and columns
+     * @param rows reusable set for rows
+     * @param cols reusable set for columns
+     * @param nanos time to run for
+     * @return number of detections done
+     */
+    private static long run(LineDetector detector, int[] cells, int size, BitSet rows, BitSet cols, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long ops = 0;
+        do {
+            for (int i = 0; i < 64; i++) {
+                rows.clear();
+                cols.clear();
+                detector.findFullRows(cells, size, size, rows);
+                detector.findFullColumns(cells, size, size, cols);
+                sink += rows.cardinality() + cols.cardinality();
+            }
+            ops += 64;
+        } while (System.nanoTime() < end);
+        return ops;
+    }
+
+}
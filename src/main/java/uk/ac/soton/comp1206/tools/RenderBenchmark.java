@@ -0,0 +1,300 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import uk.ac.soton.comp1206.component.CanvasBoard;
+import uk.ac.soton.comp1206.component.GameBoard;
+import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.scene.ChallengeScene;
+import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.RenderStats;
+import uk.ac.soton.comp1206.ui.RepaintScheduler;
+
+/**
+ * Benchmark rendering GameBoard, CanvasBoard, PieceBoard and the whole ChallengeScene offscreen, for a repeatable
+ * figure to compare rendering changes by. Each frame changes the grid in one of several patterns, runs the scheduled
+ * repaints and snapshots the scene into the same WritableImage, and the time, paints and allocations per frame are
+ * reported. Nothing is shown and the scenes have no window, so no pulses interfere.
+ *
+ * Rendering uses the software pipeline unless -Dprism.order is given, so the figures do not depend on the graphics
+ * card. Without a display, run under xvfb-run or with Monocle on the module path (-Dglass.platform=Monocle
+ * -Dmonocle.platform=Headless). Run with --add-modules jdk.management to report allocations, which are summed over
+ * every thread so the render thread doing the snapshot is included.
+ *
+ * Arguments (all optional): board sizes to measure, or none for the default sizes.
+ */
+public class RenderBenchmark {
+
+    /**
+     * Board sizes to measure
+     */
+    private static final int[] SIZES = {5, 10, 20, 50};
+
+    /**
+     * Width and height of the main board, as in the challenge scene
+     */
+    private static final double BOARD_PIXELS = 400;
+
+    /**
+     * Widths and heights of the piece boards, as in the challenge scene
+     */
+    private static final double[] PIECE_PIXELS = {100, 150};
+
+    /**
+     * Width of the game window
+     */
+    private static final int WINDOW_WIDTH = 800;
+
+    /**
+     * Height of the game window
+     */
+    private static final int WINDOW_HEIGHT = 600;
+
+    /**
+     * How long to spend warming up each case, in nanoseconds
+     */
+    private static final long WARM_UP_NANOS = 500_000_000L;
+
+    /**
+     * How long to spend measuring each case, in nanoseconds
+     */
+    private static final long RUN_NANOS = 1_000_000_000L;
+
+    /**
+     * Whether allocations can be measured
+     */
+    private static final boolean ALLOCATIONS = ModuleLayer.boot().findModule("jdk.management").isPresent();
+
+    /**
+     * Number of the next frame, which the patterns work from
+     */
+    private static int frame;
+
+    /**
+     * How each frame changes the grid
+     */
+    private enum Pattern {
+
+        /**
+         * One cell changes
+         */
+        SINGLE,
+
+        /**
+         * A tenth of the cells change, scattered at random
+         */
+        SCATTER,
+
+        /**
+         * Every cell changes
+         */
+        FULL;
+
+        /**
+         * Change the grid for a frame, in one batch
+         * @param grid grid to change
+         * @param random random source
+         * @param frame number of the frame
+         */
+        void apply(Grid grid, Random random, int frame) {
+            int cols = grid.getCols();
+            int rows = grid.getRows();
+            grid.begin();
+            switch (this) {
+                case SINGLE -> grid.set(frame % cols, frame / cols % rows, 1 + frame % 15);
+                case SCATTER -> {
+                    for (int i = 0; i < Math.max(1, cols * rows / 10); i++) {
+                        grid.set(random.nextInt(cols), random.nextInt(rows), random.nextInt(16));
+                    }
+                }
+                case FULL -> {
+                    for (int y = 0; y < rows; y++) {
+                        for (int x = 0; x < cols; x++) {
+                            grid.set(x, y, 1 + (x + y + frame) % 15);
+                        }
+                    }
+                }
+            }
+            grid.commit();
+        }
+    }
+
+    /**
+     * Run the benchmark
+     * @param args board sizes to measure, or none for the default sizes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException {
+        // Per-paint logging would swamp the measurement
+        System.setProperty("tetrecs.logLevel", "warn");
+        if (System.getProperty("prism.order") == null) {
+            System.setProperty("prism.order", "sw");
+        }
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        if (!ALLOCATIONS) {
+            System.out.println("Allocations not measured, run with --add-modules jdk.management");
+        }
+
+        // Everything is built and snapshotted on the JavaFX thread
+        int[] measured = sizes;
+        var done = new CountDownLatch(1);
+        Platform.startup(() -> {
+            try {
+                run(measured);
+            }
+            catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+        System.exit(0);
+    }
+
+    /**
+     * Measure every case
+     * @param sizes board sizes to measure
+     */
+    private static void run(int[] sizes) {
+        // An offline window, never shown, for the challenge scene to be built in
+        var window = new GameWindow(new Stage(), WINDOW_WIDTH, WINDOW_HEIGHT, null);
+
+        System.out.printf("%-14s %-8s %-8s %10s %12s %12s%n", "component", "board", "pattern", "ms/frame",
+            "paints/frame", "KB/frame");
+        for (int size : sizes) {
+            for (Pattern pattern : Pattern.values()) {
+                var random = new Random(size);
+                String board = size + "x" + size;
+
+                var grid = new Grid(size, size);
+                measure("GameBoard", board, pattern, sceneOf(new GameBoard(grid, BOARD_PIXELS, BOARD_PIXELS)),
+                    frame -> pattern.apply(grid, random, frame));
+
+                var canvasGrid = new Grid(size, size);
+                measure("CanvasBoard", board, pattern,
+                    sceneOf(new CanvasBoard(canvasGrid, BOARD_PIXELS, BOARD_PIXELS)),
+                    frame -> pattern.apply(canvasGrid, random, frame));
+
+                // The challenge scene reads its board size when it is built
+                System.setProperty("tetrecs.boardSize", String.valueOf(size));
+                var challenge = new ChallengeScene(window);
+                challenge.build();
+                var challengeGrid = challenge.getGame().getGrid();
+                measure("ChallengeScene", board, pattern, challenge.setScene(),
+                    frame -> pattern.apply(challengeGrid, random, frame));
+            }
+        }
+
+        // Each frame shows the next piece or rotation
+        for (double pixels : PIECE_PIXELS) {
+            var pieceBoard = new PieceBoard(pixels, pixels);
+            measure("PieceBoard", (int) pixels + "px", null, sceneOf(pieceBoard),
+                frame -> pieceBoard.displayPiece(GamePiece.createPiece(frame % GamePiece.PIECES),
+                    frame / GamePiece.PIECES % GamePiece.ROTATIONS));
+        }
+    }
+
+    /**
+     * Put a component in a scene of its own
+     * @param node component
+     * @return scene
+     */
+    private static Scene sceneOf(Node node) {
+        var pane = new StackPane(node);
+        return new Scene(pane, BOARD_PIXELS, BOARD_PIXELS);
+    }
+
+    /**
+     * Warm up and measure one case, and print its figures
+     * @param component name of the component
+     * @param board size of the board
+     * @param pattern how the grid changes, or null if it does not apply
+     * @param scene scene to render
+     * @param change makes the change of a frame, given its number
+     */
+    private static void measure(String component, String board, Pattern pattern, Scene scene, IntConsumer change) {
+        var image = new WritableImage((int) Math.ceil(scene.getWidth()), (int) Math.ceil(scene.getHeight()));
+        render(scene, change, image, WARM_UP_NANOS);
+
+        long paints = RenderStats.getPaints();
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        int frames = render(scene, change, image, RUN_NANOS);
+        long elapsed = System.nanoTime() - start;
+        double paintsPerFrame = (RenderStats.getPaints() - paints) / (double) frames;
+        String kilobytes = ALLOCATIONS
+            ? String.format("%.1f", (allocatedBytes() - bytes) / 1024.0 / frames) : "-";
+
+        System.out.printf("%-14s %-8s %-8s %10.3f %12.1f %12s%n", component, board,
+            pattern == null ? "-" : pattern.name().toLowerCase(), elapsed / 1e6 / frames, paintsPerFrame, kilobytes);
+    }
+
+    /**
+     * Render frames for the given time
+     * @param scene scene to render
+     * @param change makes the change of a frame, given its number
+     * @param image image to snapshot into
+     * @param nanos time to render for
+     * @return number of frames rendered
+     */
+    private static int render(Scene scene, IntConsumer change, WritableImage image, long nanos) {
+        long end = System.nanoTime() + nanos;
+        int frames = 0;
+        do {
+            change.accept(frame++);
+            // The scene has no window and so no pulses, so run the repaints before the snapshot
+            RepaintScheduler.flush(scene);
+            scene.snapshot(image);
+            frames++;
+        } while (System.nanoTime() < end);
+        return frames;
+    }
+
+    /**
+     * Get the bytes allocated so far by every live thread
+     * @return bytes, or 0 if allocations cannot be measured
+     */
+    private static long allocatedBytes() {
+        return ALLOCATIONS ? Allocations.total() : 0;
+    }
+
+    /**
+     * Reads the allocation counters, only loaded once the jdk.management module is known to be present
+     */
+    private static final class Allocations {
+
+        /**
+         * Get the bytes allocated so far by every live thread
+         * @return bytes
+         */
+        private static long total() {
+            var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long total = 0;
+            for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                total += Math.max(0, bytes);
+            }
+            return total;
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import uk.ac.soton.comp1206.ai.BoardEvaluator;
+import uk.ac.soton.comp1206.ai.Episode;
+import uk.ac.soton.comp1206.ai.HeuristicPolicy;
+import uk.ac.soton.comp1206.ai.Policies;
+import uk.ac.soton.comp1206.ai.ValueNetwork;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * Tournament between placement policies. Every policy plays the same seeded games, so game i deals every policy the
+ * same pieces, and the games run in parallel on all cores.
+ *
+ * For each policy it reports the mean score and how fast it plays, in CPU time per move. For each pair of policies it
+ * reports the mean of the paired score differences with a 95% confidence interval and the two-sided p-value of a
+ * paired test, so a difference can be told apart from luck of the draw.
+ *
+ * Besides the registered policies, tuned weights in heuristic-weights.txt and a trained network in value-network.bin
+ * join as "tuned" and "value" when those files exist.
+ *
+ * Arguments (all optional): games (default 200), board size (default 5), comma-separated policy names (default all).
+ */
+public class Tournament {
+
+    /**
+     * Most pieces played in one game
+     */
+    private static final int MAX_MOVES = 300;
+
+    /**
+     * Seed of the first game; game i uses this plus i
+     */
+    private static final long BASE_SEED = 34_000;
+
+    /**
+     * Run the tournament
+     * @param args games, board size and policy names
+     * @throws Exception if a file cannot be read or a game fails
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("tetrecs.logLevel", "warn");
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        registerFiles(size);
+        List<String> names = args.length > 2 ? List.of(args[2].split(",")) : Policies.names();
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("Playing %d policies on %d seeded %dx%d games each, on %d cores%n", names.size(), games,
+            size, size, cores);
+
+        // Play every policy on every seed
+        int[][] scores = new int[names.size()][games];
+        int[][] moves = new int[names.size()][games];
+        long[][] cpu = new long[names.size()][games];
+        var threads = ManagementFactory.getThreadMXBean();
+        var pool = new ForkJoinPool(cores);
+        long start = System.nanoTime();
+        try {
+            pool.submit(() -> IntStream.range(0, names.size() * games).parallel().forEach(task -> {
+                int player = task / games;
+                int game = task % games;
+                long seed = BASE_SEED + game;
+                var policy = Policies.create(names.get(player), seed);
+                var simulation = new Simulation(size, size, seed);
+                long before = threads.getCurrentThreadCpuTime();
+                scores[player][game] = Episode.play(simulation, policy, MAX_MOVES);
+                cpu[player][game] = threads.getCurrentThreadCpuTime() - before;
+                moves[player][game] = simulation.getMoves();
+            })).get();
+        }
+        finally {
+            pool.shutdown();
+        }
+        System.out.printf("Played %d games in %.1fs%n%n", names.size() * games, (System.nanoTime() - start) / 1e9);
+
+        // Each policy on its own
+        System.out.printf("%-20s %10s %10s %10s %12s %12s%n", "policy", "mean", "sd", "moves", "us/move",
+            "games/cpu-s");
+        for (int player = 0; player < names.size(); player++) {
+            double mean = mean(scores[player]);
+            long totalMoves = Arrays.stream(moves[player]).asLongStream().sum();
+            long totalCpu = Arrays.stream(cpu[player]).sum();
+            System.out.printf("%-20s %10.1f %10.1f %10.1f %12.1f %12.1f%n", names.get(player), mean,
+                Math.sqrt(variance(scores[player], mean)), totalMoves / (double) games,
+                totalCpu / 1e3 / Math.max(1, totalMoves), games / Math.max(1e-9, totalCpu / 1e9));
+        }
+
+        // Every pair of policies on the same seeds
+        System.out.printf("%n%-20s %-20s %10s %22s %10s%n", "policy", "versus", "mean diff", "95% interval",
+            "p-value");
+        for (int a = 0; a < names.size(); a++) {
+            for (int b = a + 1; b < names.size(); b++) {
+                int[] differences = new int[games];
+                for (int game = 0; game < games; game++) {
+                    differences[game] = scores[a][game] - scores[b][game];
+                }
+                double mean = mean(differences);
+                double error = Math.sqrt(variance(differences, mean) / games);
+                double p = error > 0 ? 2 * (1 - normalCdf(Math.abs(mean) / error)) : mean == 0 ? 1 : 0;
+                System.out.printf("%-20s %-20s %10.1f %22s %10.4f%s%n", names.get(a), names.get(b), mean,
+                    String.format("[%.1f, %.1f]", mean - 1.96 * error, mean + 1.96 * error), p,
+                    p < 0.05 ? " *" : "");
+            }
+        }
+    }
+
+    /**
+     * Register the tuned weights and trained network for the board size, when their files exist
+     * @param size board size
+     * @throws Exception if a file cannot be read
+     */
+    private static void registerFiles(int size) throws Exception {
+        Path weights = Path.of("heuristic-weights.txt");
+        if (Files.exists(weights)) {
+            double[] tuned = BoardEvaluator.load(weights);
+            Policies.register("tuned", seed -> new HeuristicPolicy(tuned));
+        }
+        Path network = Path.of("value-network.bin");
+        if (Files.exists(network)) {
+            var trained = ValueNetwork.load(network);
+            if (trained.getInputs() == ValueNetwork.inputCount(size, size)) {
+                Policies.register("value", seed -> new HeuristicPolicy(new ValueNetwork(trained), true));
+            }
+        }
+    }
+
+    /**
+     * Get the mean of some values
+     * @param values values
+     * @return mean
+     */
+    private static double mean(int[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    /**
+     * Get the sample variance of some values
+     * @param values values
+     * @param mean mean of the values
+     * @return variance
+     */
+    private static double variance(int[] values, double mean) {
+        double squares = 0;
+        for (int value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return values.length > 1 ? squares / (values.length - 1) : 0;
+    }
+
+    /**
+     * Get the standard normal cumulative distribution, which the paired t statistic follows closely for the number
+     * of games a tournament plays
+     * @param z value
+     * @return probability of a standard normal value below z
+     */
+    private static double normalCdf(double z) {
+        // Abramowitz and Stegun 7.1.26 approximation of erf
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - ((((1.061405429 * t - 1.453152027) * t + 1.421413741) * t - 0.284496736) * t
+            + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+}
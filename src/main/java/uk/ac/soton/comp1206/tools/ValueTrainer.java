@@ -0,0 +1,307 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import uk.ac.soton.comp1206.ai.BoardEvaluator;
+import uk.ac.soton.comp1206.ai.Episode;
+import uk.ac.soton.comp1206.ai.HeuristicPolicy;
+import uk.ac.soton.comp1206.ai.Moves;
+import uk.ac.soton.comp1206.ai.Policy;
+import uk.ac.soton.comp1206.ai.RandomPolicy;
+import uk.ac.soton.comp1206.ai.ValueNetwork;
+import uk.ac.soton.comp1206.game.Simulation;
+
+/**
+ * Self-play trainer for the ValueNetwork. Each iteration plays games on all cores with the current policy, mostly
+ * greedy on the network and sometimes random to explore, and records every board after a move together with the
+ * points the game went on to score. The network is then fitted to these examples by stochastic gradient descent.
+ *
+ * The first iteration plays with the BoardEvaluator heuristic, so the network starts from sensible games. After each
+ * iteration the network plays a fixed set of seeded evaluation games, and the best one so far is written to the output
+ * file, which ValueNetwork.load reads.
+ *
+ * Arguments (all optional): iterations (default 5), games per iteration (default 400), hidden units (default 32, 0
+ * for a linear model), epochs per iteration (default 8), output file (default value-network.bin).
+ */
+public class ValueTrainer {
+
+    /**
+     * Size of the simulated board
+     */
+    private static final int BOARD_SIZE = 5;
+
+    /**
+     * Most pieces played in one game
+     */
+    private static final int MAX_MOVES = 300;
+
+    /**
+     * Chance of playing a random move while generating examples
+     */
+    private static final double EXPLORATION = 0.1;
+
+    /**
+     * Number of seeded games the network is evaluated on
+     */
+    private static final int EVALUATION_GAMES = 64;
+
+    /**
+     * Seed of the first evaluation game; game i uses this plus i
+     */
+    private static final long EVALUATION_SEED = 20_061;
+
+    /**
+     * Learning rate of the first epoch
+     */
+    private static final double LEARNING_RATE = 0.002;
+
+    /**
+     * Seed of the initial weights and the shuffling
+     */
+    private static final long SEED = 1206;
+
+    /**
+     * Run the trainer
+     * @param args iterations, games per iteration, hidden units, epochs per iteration and output file
+     * @throws Exception if the network cannot be written, or a game fails
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("tetrecs.logLevel", "warn");
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int hidden = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int epochs = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        Path output = Path.of(args.length > 4 ? args[4] : "value-network.bin");
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("Training a %s network over %d iterations of %d games on %d cores%n",
+            hidden > 0 ? hidden + "-unit" : "linear", iterations, games, cores);
+
+        var pool = new ForkJoinPool(cores);
+        var network = new ValueNetwork(BOARD_SIZE, BOARD_SIZE, hidden, SEED);
+        var shuffle = new Random(SEED);
+        double best = evaluate(pool, null);
+        System.out.printf("heuristic baseline: mean score %.1f%n", best);
+        try {
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                long start = System.nanoTime();
+                Examples examples = generate(pool, iteration == 0 ? null : network, games, iteration);
+                long generated = System.nanoTime();
+                if (iteration == 0) {
+                    network.normalise(examples.inputs, examples.targets, examples.count);
+                }
+                double loss = fit(network, examples, epochs, shuffle);
+                long trained = System.nanoTime();
+                double score = evaluate(pool, network);
+                System.out.printf("iteration %d: %d examples in %.1fs, loss %.3f in %.1fs, mean score %.1f%n",
+                    iteration, examples.count, (generated - start) / 1e9, loss, (trained - generated) / 1e9, score);
+                if (score > best) {
+                    best = score;
+                    network.save(output);
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        if (Files.exists(output)) {
+            // Time how fast the runtime side loads and evaluates the network
+            long start = System.nanoTime();
+            var loaded = ValueNetwork.load(output);
+            long loadTime = System.nanoTime() - start;
+            System.out.printf("Best network (mean score %.1f) written to %s: loads in %d us, evaluates in %.0f ns%n",
+                best, output, loadTime / 1000, evaluationTime(loaded));
+        }
+        else {
+            System.out.println("No network beat the heuristic baseline, nothing written");
+        }
+    }
+
+    /**
+     * Play games with the current policy on all cores and record the examples
+     * @param pool pool to play the games on
+     * @param network network to play greedily on, or null to play with the heuristic
+     * @param games number of games
+     * @param iteration iteration number, which seeds the games
+     * @return examples
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if a game fails
+     */
+    private static Examples generate(ForkJoinPool pool, ValueNetwork network, int games, int iteration)
+        throws InterruptedException, ExecutionException {
+        Examples[] perGame = new Examples[games];
+        pool.submit(() -> IntStream.range(0, games).parallel().forEach(game -> {
+            long seed = (long) iteration * games + game;
+            perGame[game] = playAndRecord(policy(network), new RandomPolicy(~seed), seed);
+        })).get();
+
+        // Join the examples of every game into one set
+        int count = 0;
+        for (Examples examples : perGame) {
+            count += examples.count;
+        }
+        int inputs = ValueNetwork.inputCount(BOARD_SIZE, BOARD_SIZE);
+        var all = new Examples(count, inputs);
+        for (Examples examples : perGame) {
+            System.arraycopy(examples.inputs, 0, all.inputs, all.count * inputs, examples.count * inputs);
+            System.arraycopy(examples.targets, 0, all.targets, all.count, examples.count);
+            all.count += examples.count;
+        }
+        return all;
+    }
+
+    /**
+     * Play one game, mostly with the given policy and sometimes randomly, recording every board after a move
+     * @param policy policy to play with
+     * @param explorer random policy to explore with
+     * @param seed seed of the pieces and the exploration
+     * @return examples, whose targets are the points scored after each move until the end of the game
+     */
+    private static Examples playAndRecord(Policy policy, Policy explorer, long seed) {
+        var simulation = new Simulation(BOARD_SIZE, BOARD_SIZE, seed);
+        var encoder = new ValueNetwork(BOARD_SIZE, BOARD_SIZE, 0, 0);
+        var random = new SplittableRandom(seed);
+        int inputs = encoder.getInputs();
+        var examples = new Examples(MAX_MOVES, inputs);
+        int[] scoreAfter = new int[MAX_MOVES];
+
+        while (!simulation.isOver() && simulation.getMoves() < MAX_MOVES) {
+            int move = random.nextDouble() < EXPLORATION ? explorer.chooseMove(simulation)
+                : policy.chooseMove(simulation);
+            if (move == Moves.NONE) {
+                simulation.timeout();
+                continue;
+            }
+            if (Moves.isSwap(move)) {
+                simulation.swap();
+            }
+            int lines = simulation.play(Moves.rotation(move), Moves.x(move), Moves.y(move));
+            encoder.encode(simulation, lines, examples.inputs, examples.count * inputs);
+            scoreAfter[examples.count] = simulation.getScore();
+            examples.count++;
+        }
+        for (int i = 0; i < examples.count; i++) {
+            examples.targets[i] = simulation.getScore() - scoreAfter[i];
+        }
+        return examples;
+    }
+
+    /**
+     * Fit the network to the examples, visiting them in a new random order every epoch
+     * @param network network to train
+     * @param examples examples to fit
+     * @param epochs passes over the examples
+     * @param shuffle random source of the order
+     * @return mean squared error of the last epoch, in units of the output scale
+     */
+    private static double fit(ValueNetwork network, Examples examples, int epochs, Random shuffle) {
+        int[] order = new int[examples.count];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        double loss = 0;
+        int inputs = network.getInputs();
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = shuffle.nextInt(i + 1);
+                int temp = order[i];
+                order[i] = order[j];
+                order[j] = temp;
+            }
+            double rate = LEARNING_RATE / (1 + epoch);
+            loss = 0;
+            for (int example : order) {
+                loss += network.train(examples.inputs, example * inputs, examples.targets[example], rate);
+            }
+            loss /= Math.max(1, order.length);
+        }
+        return loss;
+    }
+
+    /**
+     * Play the seeded evaluation games greedily on all cores
+     * @param pool pool to play the games on
+     * @param network network to play on, or null to play with the heuristic
+     * @return mean score
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if a game fails
+     */
+    private static double evaluate(ForkJoinPool pool, ValueNetwork network)
+        throws InterruptedException, ExecutionException {
+        int[] scores = new int[EVALUATION_GAMES];
+        pool.submit(() -> IntStream.range(0, scores.length).parallel().forEach(game -> {
+            var simulation = new Simulation(BOARD_SIZE, BOARD_SIZE, EVALUATION_SEED + game);
+            scores[game] = Episode.play(simulation, policy(network), MAX_MOVES);
+        })).get();
+        return Arrays.stream(scores).average().orElse(0);
+    }
+
+    /**
+     * Create a greedy policy for one thread
+     * @param network network to play on, copied for the thread, or null to play with the heuristic
+     * @return policy
+     */
+    private static Policy policy(ValueNetwork network) {
+        return network == null ? new HeuristicPolicy(BoardEvaluator.defaultWeights())
+            : new HeuristicPolicy(new ValueNetwork(network), true);
+    }
+
+    /**
+     * Measure the mean time of evaluating one board
+     * @param network network to time
+     * @return nanoseconds per evaluation
+     */
+    private static double evaluationTime(ValueNetwork network) {
+        var simulation = new Simulation(BOARD_SIZE, BOARD_SIZE, EVALUATION_SEED);
+        int calls = 200_000;
+        double sink = 0;
+        for (int i = 0; i < calls; i++) {
+            sink += network.evaluate(simulation, 0);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sink += network.evaluate(simulation, 0);
+        }
+        long time = System.nanoTime() - start;
+        return sink == Double.NEGATIVE_INFINITY ? 0 : time / (double) calls;
+    }
+
+    /**
+     * A set of examples held in primitive arrays
+     */
+    private static class Examples {
+
+        /**
+         * Raw inputs of the examples, one after another
+         */
+        private final double[] inputs;
+
+        /**
+         * Target of each example
+         */
+        private final double[] targets;
+
+        /**
+         * Number of examples held
+         */
+        private int count;
+
+        /**
+         * Create an empty set of examples
+         * @param capacity most examples to hold
+         * @param inputs number of inputs of each example
+         */
+        private Examples(int capacity, int inputs) {
+            this.inputs = new double[capacity * inputs];
+            this.targets = new double[capacity];
+        }
+
+    }
+
+}
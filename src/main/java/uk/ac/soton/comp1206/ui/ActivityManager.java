@@ -0,0 +1,212 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.event.EventHandler;
+import javafx.scene.input.InputEvent;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.GameHost;
+
+/**
+ * The ActivityManager tells the rest of the user interface whether anyone is likely to be looking at it. The game is
+ * showing while any watched window is open and not minimised, and active while it is showing, one of the application's
+ * windows has focus, and there has been input within the idle time.
+ *
+ * Decorative animations and music follow the active state and the game's own animations follow the showing state, so
+ * an idle, unfocused or minimised window runs no animations at all and JavaFX stops asking for pulses until something
+ * changes. The idle time is set in seconds with -Dtetrecs.idleSeconds, and 0 never goes idle. Only to be used on the
+ * JavaFX thread.
+ */
+public final class ActivityManager {
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(ActivityManager.class);
+
+    /**
+     * Time without input after which the game is idle, in nanoseconds, or 0 to never go idle
+     */
+    private static final long IDLE_TIME = TimeUnit.SECONDS.toNanos(Long.getLong("tetrecs.idleSeconds", 120));
+
+    /**
+     * The windows watched
+     */
+    private static final List<Stage> stages = new ArrayList<>();
+
+    /**
+     * Whether any watched window is open and not minimised
+     */
+    private static final ReadOnlyBooleanWrapper showing = new ReadOnlyBooleanWrapper(true);
+
+    /**
+     * Whether the game is showing, focused and not idle
+     */
+    private static final ReadOnlyBooleanWrapper active = new ReadOnlyBooleanWrapper(true);
+
+    /**
+     * Notes every input to any watched window
+     */
+    private static final EventHandler<InputEvent> inputFilter = event -> input();
+
+    /**
+     * Time of the last input, from System.nanoTime
+     */
+    private static long lastInput = System.nanoTime();
+
+    /**
+     * Whether there has been no input for the idle time
+     */
+    private static boolean idle;
+
+    /**
+     * Whether a check for idleness is scheduled
+     */
+    private static boolean idleCheckScheduled;
+
+    /**
+     * Whether an update is queued after a change of focus
+     */
+    private static boolean focusUpdateQueued;
+
+    /**
+     * Not to be created
+     */
+    private ActivityManager() {
+    }
+
+    /**
+     * Watch a window for being minimised, losing focus and going without input
+     * @param stage window to watch
+     */
+    public static void watch(Stage stage) {
+        stages.add(stage);
+        stage.showingProperty().addListener((observable, wasShowing, isShowing) -> update());
+        stage.iconifiedProperty().addListener((observable, wasIconified, isIconified) -> update());
+        stage.focusedProperty().addListener((observable, wasFocused, isFocused) -> focusChanged());
+        stage.addEventFilter(InputEvent.ANY, inputFilter);
+        input();
+        scheduleIdleCheck(IDLE_TIME);
+        update();
+    }
+
+    /**
+     * Check whether any watched window is open and not minimised
+     * @return whether the game is showing
+     */
+    public static boolean isShowing() {
+        return showing.get();
+    }
+
+    /**
+     * Get the property holding whether the game is showing, to follow its changes
+     * @return showing property
+     */
+    public static ReadOnlyBooleanProperty showingProperty() {
+        return showing.getReadOnlyProperty();
+    }
+
+    /**
+     * Check whether the game is showing, focused and not idle
+     * @return whether the game is active
+     */
+    public static boolean isActive() {
+        return active.get();
+    }
+
+    /**
+     * Get the property holding whether the game is active, to follow its changes
+     * @return active property
+     */
+    public static ReadOnlyBooleanProperty activeProperty() {
+        return active.getReadOnlyProperty();
+    }
+
+    /**
+     * Note an input, waking the game up if it was idle
+     */
+    private static void input() {
+        lastInput = System.nanoTime();
+        if (idle) {
+            idle = false;
+            update();
+            scheduleIdleCheck(IDLE_TIME);
+        }
+    }
+
+    /**
+     * Update once focus has settled, since focus leaves one window before it reaches the next, such as a dialog
+     */
+    private static void focusChanged() {
+        if (!focusUpdateQueued) {
+            focusUpdateQueued = true;
+            UiQueue.runLater(() -> {
+                focusUpdateQueued = false;
+                update();
+            });
+        }
+    }
+
+    /**
+     * Check for idleness after a delay on the shared game host, unless a check is scheduled already
+     * @param delay delay in nanoseconds
+     */
+    private static void scheduleIdleCheck(long delay) {
+        if (IDLE_TIME <= 0 || idleCheckScheduled) {
+            return;
+        }
+        idleCheckScheduled = true;
+        var host = GameHost.getDefault();
+        host.schedule(() -> host.runLater(ActivityManager::checkIdle), TimeUnit.NANOSECONDS.toMillis(delay) + 1);
+    }
+
+    /**
+     * Go idle if there has been no input for the idle time, or check again when it would be up
+     */
+    private static void checkIdle() {
+        idleCheckScheduled = false;
+        long quiet = System.nanoTime() - lastInput;
+        if (quiet >= IDLE_TIME) {
+            // Input starts the checks again
+            idle = true;
+            update();
+        }
+        else {
+            scheduleIdleCheck(IDLE_TIME - quiet);
+        }
+    }
+
+    /**
+     * Work out the showing and active states from the watched windows
+     */
+    private static void update() {
+        boolean anyShowing = false;
+        for (Stage stage : stages) {
+            if (stage.isShowing() && !stage.isIconified()) {
+                anyShowing = true;
+                break;
+            }
+        }
+        // Any window of the application will do, so opening a dialog does not count as leaving
+        boolean anyFocused = false;
+        for (Window window : Window.getWindows()) {
+            if (window.isFocused()) {
+                anyFocused = true;
+                break;
+            }
+        }
+        boolean nowActive = anyShowing && anyFocused && !idle;
+        if (anyShowing != showing.get() || nowActive != active.get()) {
+            logger.info("Game is {}", !anyShowing ? "hidden" : idle ? "idle" : !anyFocused ? "unfocused" : "active");
+        }
+        showing.set(anyShowing);
+        active.set(nowActive);
+    }
+
+}
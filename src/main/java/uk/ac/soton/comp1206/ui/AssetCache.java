@@ -0,0 +1,227 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.ImagePattern;
+import javafx.scene.shape.Shape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The AssetCache holds the images of every scene for the whole process, so opening a scene again reuses the images
+ * already decoded instead of reading and decoding the PNGs again.
+ *
+ * Images are loaded in the background, so building a scene never waits for decoding: an image shows up as soon as it
+ * is ready, and is returned at once from then on. Memory is kept under a budget by dropping the least recently used
+ * images, counted by their decoded size, set in megabytes with -Dtetrecs.assetCacheMB. An image dropped from the cache
+ * stays valid for anything still showing it. An ImagePattern cannot be made from an image still loading, so shapes
+ * are filled through fill or whenLoaded, which wait for it. Only to be used on the JavaFX thread.
+ */
+public final class AssetCache {
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(AssetCache.class);
+
+    /**
+     * Decoded bytes the cache may hold
+     */
+    private static final long BUDGET = Long.getLong("tetrecs.assetCacheMB", 32) * 1024 * 1024;
+
+    /**
+     * Cached images by name and requested size, least recently used first
+     */
+    private static final LinkedHashMap<String, Entry> images = new LinkedHashMap<>(32, 0.75f, true);
+
+    /**
+     * Decoded bytes of the loaded images in the cache
+     */
+    private static long bytes;
+
+    /**
+     * Not to be created
+     */
+    private AssetCache() {
+    }
+
+    /**
+     * Get an image from the images folder at its own size, starting to load it if it is not cached
+     * @param name file name of the image
+     * @return image, which may still be loading
+     */
+    public static Image image(String name) {
+        return image(name, 0, 0);
+    }
+
+    /**
+     * Get an image from the images folder scaled down to fit a size, keeping its aspect ratio, starting to load it if
+     * it is not cached. A large image shown small takes far less memory loaded this way.
+     * @param name file name of the image
+     * @param width width to fit, or 0 for the image's own
+     * @param height height to fit, or 0 for the image's own
+     * @return image, which may still be loading
+     */
+    public static Image image(String name, double width, double height) {
+        String key = width > 0 || height > 0 ? name + "@" + width + "x" + height : name;
+        Entry entry = images.get(key);
+        if (entry != null) {
+            return entry.image;
+        }
+        URL url = AssetCache.class.getResource("/images/" + name);
+        if (url == null) {
+            throw new IllegalArgumentException("No image " + name);
+        }
+
+        // Decode in the background and count the image once it is ready
+        entry = new Entry(key, new Image(url.toExternalForm(), width, height, true, true, true));
+        images.put(key, entry);
+        Entry loading = entry;
+        if (entry.image.getProgress() >= 1 || entry.image.isError()) {
+            loaded(loading);
+        }
+        else {
+            entry.image.progressProperty().addListener((observable, oldProgress, progress) -> {
+                if (progress.doubleValue() >= 1) {
+                    loaded(loading);
+                }
+            });
+            entry.image.errorProperty().addListener((observable, wasError, error) -> {
+                if (error) {
+                    loaded(loading);
+                }
+            });
+        }
+        return entry.image;
+    }
+
+    /**
+     * Fill a shape with an image from the images folder once it has loaded, leaving the shape clear until then
+     * @param shape shape to fill
+     * @param name file name of the image
+     */
+    public static void fill(Shape shape, String name) {
+        shape.setFill(Color.TRANSPARENT);
+        whenLoaded(name, image -> shape.setFill(new ImagePattern(image)));
+    }
+
+    /**
+     * Use an image from the images folder once it has loaded: straight away if it is cached and loaded, otherwise as
+     * soon as it finishes. If it fails to load, the failure is logged and nothing else happens.
+     * @param name file name of the image
+     * @param action what to do with the loaded image
+     */
+    public static void whenLoaded(String name, Consumer<Image> action) {
+        Image image = image(name);
+        if (finish(image, name, action)) {
+            return;
+        }
+        // Listen to both progress and error, and stop listening to either once the image is done
+        var listener = new ChangeListener<Object>() {
+            @Override
+            public void changed(ObservableValue<?> observable, Object oldValue, Object newValue) {
+                if (finish(image, name, action)) {
+                    image.progressProperty().removeListener(this);
+                    image.errorProperty().removeListener(this);
+                }
+            }
+        };
+        image.progressProperty().addListener(listener);
+        image.errorProperty().addListener(listener);
+    }
+
+    /**
+     * Use an image if it is done loading
+     * @param image image
+     * @param name file name of the image, for the log
+     * @param action what to do with the loaded image
+     * @return whether the image is done, loaded or failed
+     */
+    private static boolean finish(Image image, String name, Consumer<Image> action) {
+        if (image.isError()) {
+            logger.error("Cannot show image {}", name);
+            return true;
+        }
+        if (image.getProgress() >= 1) {
+            action.accept(image);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Count an image that has finished loading, or forget one that failed to, and drop images until the cache is
+     * under budget
+     * @param entry entry of the image
+     */
+    private static void loaded(Entry entry) {
+        if (entry.evicted) {
+            return;
+        }
+        if (entry.image.isError()) {
+            logger.error("Cannot load image {}", entry.key);
+            images.remove(entry.key);
+            entry.evicted = true;
+            return;
+        }
+        entry.bytes = (long) entry.image.getWidth() * (long) entry.image.getHeight() * 4;
+        bytes += entry.bytes;
+
+        // Drop the least recently used, but never the image just loaded
+        Iterator<Entry> eldest = images.values().iterator();
+        while (bytes > BUDGET && eldest.hasNext()) {
+            Entry dropped = eldest.next();
+            if (dropped == entry) {
+                continue;
+            }
+            eldest.remove();
+            dropped.evicted = true;
+            bytes -= dropped.bytes;
+            logger.debug("Dropped image {} from the cache", dropped.key);
+        }
+    }
+
+    /**
+     * An image in the cache
+     */
+    private static final class Entry {
+
+        /**
+         * Key of the image in the cache
+         */
+        private final String key;
+
+        /**
+         * The image
+         */
+        private final Image image;
+
+        /**
+         * Decoded bytes of the image, or 0 while it is loading
+         */
+        private long bytes;
+
+        /**
+         * Whether the image has been dropped from the cache
+         */
+        private boolean evicted;
+
+        /**
+         * Create an entry
+         * @param key key of the image in the cache
+         * @param image the image
+         */
+        private Entry(String key, Image image) {
+            this.key = key;
+            this.image = image;
+        }
+
+    }
+
+}
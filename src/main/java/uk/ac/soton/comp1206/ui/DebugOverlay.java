@@ -0,0 +1,263 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.util.Arrays;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+
+/**
+ * The DebugOverlay shows, once a second, how the frames of a scene are going: frames per second, how long the work of
+ * each pulse took (median, 99th percentile and worst), the paint requests and paints of the boards per frame, the
+ * number of nodes in the scene graph, and the tasks run through the UiQueue with the time they took. Together they
+ * tell whether a stutter comes from painting, from layout or from listeners queueing work on the JavaFX thread.
+ *
+ * A pulse is timed from the overlay's AnimationTimer, near the start of the pulse, to the end of layout, so it covers
+ * the animations, the repaints of the RepaintScheduler, CSS and layout; the render itself happens after that on the
+ * render thread. Every scene gets an overlay, toggled with F3 and shown from the start with -Dtetrecs.debug=true. It
+ * measures nothing while hidden or while its scene is not in a window.
+ */
+public class DebugOverlay extends Label {
+
+    /**
+     * Whether overlays are shown, kept from scene to scene
+     */
+    private static boolean shown = Boolean.getBoolean("tetrecs.debug");
+
+    /**
+     * Width of a bucket of the pulse histogram, in nanoseconds
+     */
+    private static final long BUCKET_TIME = 100_000;
+
+    /**
+     * Number of buckets of the pulse histogram; slower pulses go in the last
+     */
+    private static final int BUCKETS = 1000;
+
+    /**
+     * How often the figures are updated, in nanoseconds
+     */
+    private static final long WINDOW = 1_000_000_000L;
+
+    /**
+     * The scene measured
+     */
+    private final Scene scene;
+
+    /**
+     * Pulses in the current window, by duration
+     */
+    private final int[] histogram = new int[BUCKETS];
+
+    /**
+     * Pulses in the current window
+     */
+    private int pulses;
+
+    /**
+     * Longest pulse in the current window, in nanoseconds
+     */
+    private long longest;
+
+    /**
+     * When the current pulse started, or 0 outside a pulse
+     */
+    private long pulseStart;
+
+    /**
+     * When the current window started
+     */
+    private long windowStart;
+
+    /**
+     * Paint requests at the start of the window
+     */
+    private long startRequests;
+
+    /**
+     * Paints at the start of the window
+     */
+    private long startPaints;
+
+    /**
+     * Queued UI tasks at the start of the window
+     */
+    private long startQueued;
+
+    /**
+     * UI tasks run at the start of the window
+     */
+    private long startRun;
+
+    /**
+     * Time running UI tasks at the start of the window
+     */
+    private long startRunTime;
+
+    /**
+     * Marks the start of every pulse
+     */
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            pulseStarted();
+        }
+    };
+
+    /**
+     * Marks the end of layout in every pulse
+     */
+    private final Runnable pulseEnded = this::pulseEnded;
+
+    /**
+     * Whether the overlay is measuring
+     */
+    private boolean measuring;
+
+    /**
+     * Create an overlay for a scene and let F3 toggle it
+     * @param scene scene to measure
+     */
+    public DebugOverlay(Scene scene) {
+        this.scene = scene;
+        getStyleClass().add("debug");
+        setStyle("-fx-background-color: rgba(0, 0, 0, 0.7); -fx-text-fill: lime; -fx-font-family: monospace;"
+            + " -fx-font-size: 11px; -fx-padding: 4;");
+        setMouseTransparent(true);
+        setText("Measuring...");
+
+        // Toggle on F3, before the scene's own key handlers
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.F3) {
+                shown = !shown;
+                setShown(shown);
+                event.consume();
+            }
+        });
+        // Only measure while the scene is shown
+        scene.windowProperty().addListener((observable, oldWindow, newWindow) -> setShown(shown));
+        setShown(shown);
+    }
+
+    /**
+     * Show the overlay and measure while the scene is in a window, or hide it and stop
+     * @param show whether to show the overlay
+     */
+    private void setShown(boolean show) {
+        setVisible(show);
+        boolean measure = show && scene.getWindow() != null;
+        if (measure == measuring) {
+            return;
+        }
+        measuring = measure;
+        if (measure) {
+            resetWindow(System.nanoTime());
+            scene.addPostLayoutPulseListener(pulseEnded);
+            timer.start();
+        }
+        else {
+            timer.stop();
+            scene.removePostLayoutPulseListener(pulseEnded);
+            pulseStart = 0;
+        }
+    }
+
+    /**
+     * Note the start of a pulse, and update the figures once a window has passed
+     */
+    private void pulseStarted() {
+        long now = System.nanoTime();
+        pulseStart = now;
+        if (now - windowStart >= WINDOW) {
+            update(now);
+            resetWindow(now);
+        }
+    }
+
+    /**
+     * Note the end of layout in a pulse
+     */
+    private void pulseEnded() {
+        if (pulseStart == 0) {
+            return;
+        }
+        long duration = System.nanoTime() - pulseStart;
+        pulseStart = 0;
+        histogram[(int) Math.min(BUCKETS - 1, duration / BUCKET_TIME)]++;
+        pulses++;
+        longest = Math.max(longest, duration);
+    }
+
+    /**
+     * Start a new window of measurements
+     * @param now time the window starts
+     */
+    private void resetWindow(long now) {
+        windowStart = now;
+        Arrays.fill(histogram, 0);
+        pulses = 0;
+        longest = 0;
+        startRequests = RenderStats.getRequests();
+        startPaints = RenderStats.getPaints();
+        startQueued = UiQueue.getQueued();
+        startRun = UiQueue.getRun();
+        startRunTime = UiQueue.getRunTime();
+    }
+
+    /**
+     * Show the figures of the window that just ended
+     * @param now time the window ends
+     */
+    private void update(long now) {
+        double seconds = (now - windowStart) / 1e9;
+        int frames = Math.max(1, pulses);
+        setText(String.format("%.0f fps%n"
+                + "pulse ms  p50 %.1f  p99 %.1f  max %.1f%n"
+                + "per frame %.1f paint requests, %.1f paints%n"
+                + "nodes     %d%n"
+                + "runLater  %d queued, %d run, %.1f ms/s",
+            pulses / seconds,
+            percentile(0.5) / 1e6, percentile(0.99) / 1e6, longest / 1e6,
+            (RenderStats.getRequests() - startRequests) / (double) frames,
+            (RenderStats.getPaints() - startPaints) / (double) frames,
+            countNodes(scene.getRoot()),
+            UiQueue.getQueued() - startQueued, UiQueue.getRun() - startRun,
+            (UiQueue.getRunTime() - startRunTime) / 1e6 / seconds));
+    }
+
+    /**
+     * Get a percentile of the pulse durations in the window, to the upper edge of its bucket
+     * @param fraction fraction of pulses at or below the percentile
+     * @return duration in nanoseconds
+     */
+    private long percentile(double fraction) {
+        long target = (long) Math.ceil(fraction * pulses);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= target && seen > 0) {
+                return Math.min(longest, (bucket + 1) * BUCKET_TIME);
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Count the nodes in a scene graph
+     * @param node root of the graph
+     * @return number of nodes
+     */
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+}
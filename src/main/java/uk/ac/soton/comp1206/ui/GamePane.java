@@ -1,9 +1,12 @@
 package uk.ac.soton.comp1206.ui;
 
+import javafx.animation.PauseTransition;
 import javafx.geometry.Pos;
+import javafx.scene.CacheHint;
 import javafx.scene.layout.*;
 import javafx.scene.transform.Scale;
 import javafx.scene.transform.Translate;
+import javafx.util.Duration;
 
 /**
  * The Game Pane is a special pane which will scale anything inside it to the screen and maintain the aspect ratio.
@@ -15,6 +18,10 @@ import javafx.scene.transform.Translate;
  * It uses the width and height given which should match the main window size. This will be the base drawing resolution,
  * but will be scaled up or down as the window is resized.
  *
+ * The transforms are created once and only updated when the size actually changes. While the window is being resized
+ * the pane is drawn from a cached bitmap, which is only scaled from frame to frame, and is drawn properly again once
+ * the size has settled.
+ *
  * You should not need to modify this class
  */
 public class GamePane extends StackPane {
@@ -24,6 +31,31 @@ public class GamePane extends StackPane {
     private double scalar = 1;
     private final boolean autoScale = true;
 
+    /**
+     * How long the size has to stay the same for a resize to be over
+     */
+    private static final Duration RESIZE_SETTLE = Duration.millis(250);
+
+    /**
+     * Scales the content to the pane
+     */
+    private final Scale scale = new Scale(1, 1, 0, 0);
+
+    /**
+     * Centres the scaled content in the pane
+     */
+    private final Translate translate = new Translate();
+
+    /**
+     * Drops the resize cache once the size has settled
+     */
+    private final PauseTransition resizeSettle = new PauseTransition(RESIZE_SETTLE);
+
+    /**
+     * Whether the content has been scaled to the pane once already
+     */
+    private boolean laidOut;
+
     /**
      * Create a new scalable GamePane with the given drawing width and height.
      * @param width width
@@ -36,6 +68,8 @@ public class GamePane extends StackPane {
 
         getStyleClass().add("gamepane");
         setAlignment(Pos.TOP_LEFT);
+        getTransforms().setAll(translate, scale);
+        resizeSettle.setOnFinished(event -> setCache(false));
     }
 
     /**
@@ -69,9 +103,6 @@ public class GamePane extends StackPane {
             setScalar(scaleFactorHeight);
         }
 
-        //Set up the scale
-        Scale scale = new Scale(scalar,scalar);
-
         //Get the parent width and height
         var parentWidth = getWidth();
         var parentHeight = getHeight();
@@ -80,11 +111,27 @@ public class GamePane extends StackPane {
         var paddingLeft = (parentWidth - (width * scalar)) / 2.0;
         var paddingTop = (parentHeight - (height * scalar)) / 2.0;
 
+        //Nothing to do unless the size changed
+        boolean resized = laidOut;
+        laidOut = true;
+        if (scalar == scale.getX() && paddingLeft == translate.getX() && paddingTop == translate.getY()) {
+            return;
+        }
+
+        //Draw from a bitmap until the resize is over, skipping the first layout so the pane starts out sharp
+        if (resized) {
+            if (!isCache()) {
+                setCacheHint(CacheHint.SPEED);
+                setCache(true);
+            }
+            resizeSettle.playFromStart();
+        }
+
         //Perform the transformation
-        Translate translate = new Translate(paddingLeft, paddingTop);
-        scale.setPivotX(0);
-        scale.setPivotY(0);
-        getTransforms().setAll(translate, scale);
+        translate.setX(paddingLeft);
+        translate.setY(paddingTop);
+        scale.setX(scalar);
+        scale.setY(scalar);
     }
 
 }
@@ -1,6 +1,5 @@
 package uk.ac.soton.comp1206.ui;
 
-import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
@@ -9,6 +8,7 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.App;
+import uk.ac.soton.comp1206.component.TileSprites;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.scene.*;
 
@@ -36,6 +36,16 @@ public class GameWindow {
 
     final Communicator communicator;
 
+    /**
+     * The player of the sounds and music of this window
+     */
+    private final Multimedia multimedia = new Multimedia();
+
+    /**
+     * The server the game talks to
+     */
+    private static final String SERVER = "ws://ofb-labs.soton.ac.uk:9700";
+
     /**
      * Create a new GameWindow attached to the given stage with the specified width and height
      * @param stage stage
@@ -43,6 +53,17 @@ public class GameWindow {
      * @param height height
      */
     public GameWindow(Stage stage, int width, int height) {
+        this(stage, width, height, SERVER);
+    }
+
+    /**
+     * Create a new GameWindow attached to the given stage with the specified width and height, talking to a server
+     * @param stage stage
+     * @param width width
+     * @param height height
+     * @param server web socket server to connect to, or null to stay offline
+     */
+    public GameWindow(Stage stage, int width, int height, String server) {
         this.width = width;
         this.height = height;
 
@@ -58,7 +79,7 @@ public class GameWindow {
         setupDefaultScene();
 
         //Setup communicator
-        communicator = new Communicator("ws://ofb-labs.soton.ac.uk:9700");
+        communicator = new Communicator(server);
 
         //Go to menu
         startMenu();
@@ -97,6 +118,11 @@ public class GameWindow {
         stage.setMinWidth(width);
         stage.setMinHeight(height + 20);
         stage.setOnCloseRequest(ev -> App.getInstance().shutdown());
+        // Render the cell sprites again after the window is resized
+        stage.widthProperty().addListener((observable, oldWidth, newWidth) -> TileSprites.invalidate());
+        stage.heightProperty().addListener((observable, oldHeight, newHeight) -> TileSprites.invalidate());
+        // Pause what nobody is looking at while the window is minimised, unfocused or idle
+        ActivityManager.watch(stage);
     }
 
     /**
@@ -116,7 +142,7 @@ public class GameWindow {
         stage.setScene(scene);
 
         //Initialise the scene when ready
-        Platform.runLater(() -> currentScene.initialise());
+        UiQueue.runLater(() -> currentScene.initialise());
     }
 
     /**
@@ -167,6 +193,14 @@ public class GameWindow {
         return communicator;
     }
 
+    /**
+     * Get the player of the sounds and music of this window
+     * @return multimedia
+     */
+    public Multimedia getMultimedia() {
+        return multimedia;
+    }
+
     public void startInstructions() {
         loadScene(new InstructionsScene(this));
     }
@@ -1,30 +1,55 @@
 package uk.ac.soton.comp1206.ui;
 
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.WeakChangeListener;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * The Multimedia class plays the sounds and music of a single game window. Each window owns its own instance, so
+ * several games in the same process do not stop each other's music. Music pauses while the game is inactive, and
+ * carries on from the same place when it is active again.
+ */
 public class Multimedia {
 
-  private static MediaPlayer audio;
-  private static MediaPlayer music;
-  private static boolean playing = false;
-
   /**
    * The logger of the class for printing information to console
    */
   private static final Logger logger = LogManager.getLogger(Multimedia.class);
 
+  /**
+   * The player of the last audio, kept so it is not collected while playing
+   */
+  private MediaPlayer audio;
+
+  /**
+   * The player of the current music
+   */
+  private MediaPlayer music;
+
+  /**
+   * Pauses the music while the game is inactive and resumes it after
+   */
+  private final ChangeListener<Boolean> activeListener = (observable, wasActive, active) -> followActivity();
+
+  /**
+   * Create the player of the sounds and music of a window
+   */
+  public Multimedia() {
+    ActivityManager.activeProperty().addListener(new WeakChangeListener<>(activeListener));
+  }
+
   /**
    * Play an audio
    * @param fileName name of the file to play
    */
-  public static void playAudioFile(String fileName) {
-    String file = Multimedia.class.getResource("/sounds/" + fileName).toExternalForm();
+  public void playAudioFile(String fileName) {
     try {
       // Play audio
+      String file = Multimedia.class.getResource("/sounds/" + fileName).toExternalForm();
       audio = new MediaPlayer(new Media(file));
       logger.info("Playing \"{}\" sound", fileName);
       audio.play();
@@ -38,23 +63,39 @@ public class Multimedia {
    * Play music
    * @param fileName name of the file to play
    */
-  public static void playMusicFile(String fileName) {
-    String file = Multimedia.class.getResource("/music/" + fileName).toExternalForm();
+  public void playMusicFile(String fileName) {
     try {
       // Stop previous music
-      if (playing) {
+      if (music != null) {
         music.stop();
+        music = null;
       }
-      // Play new music
-      music = new MediaPlayer(new Media(file));
-      music.setOnEndOfMedia(() -> music.seek(Duration.ZERO));
+      // Play new music, kept only once it has loaded so a missing file leaves no music to resume
+      String file = Multimedia.class.getResource("/music/" + fileName).toExternalForm();
+      var player = new MediaPlayer(new Media(file));
+      player.setOnEndOfMedia(() -> player.seek(Duration.ZERO));
+      music = player;
       logger.info("Playing \"{}\" music", fileName);
-      music.play();
-      playing = true;
+      followActivity();
     }
     catch (Exception e) {
       logger.error("Cannot load music");
     }
   }
 
+  /**
+   * Play the music while the game is active, and pause it while it is not
+   */
+  private void followActivity() {
+    if (music == null) {
+      return;
+    }
+    if (ActivityManager.isActive()) {
+      music.play();
+    }
+    else {
+      music.pause();
+    }
+  }
+
 }
@@ -0,0 +1,188 @@
+package uk.ac.soton.comp1206.ui;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.WeakChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.CanvasBoard;
+import uk.ac.soton.comp1206.component.GameBlock;
+import uk.ac.soton.comp1206.component.PieceBoard;
+
+/**
+ * The QualityGovernor of a scene times the work of every pulse, from the repaints before layout to the end of layout,
+ * and steps the RenderQuality down when too many pulses in a window go over budget, and back up after several windows
+ * with plenty of headroom. Only pulses that happen are timed, so an idle scene costs nothing. It has to be created
+ * before anything else listens to the pulses of the scene, or the repaints would run before it starts timing.
+ *
+ * It also applies the quality to its scene: the root carries the no-effects style class below High, which turns off
+ * the CSS effects, and every board is repainted when the quality changes so the tiles are drawn with the new sprites.
+ */
+public class QualityGovernor {
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(QualityGovernor.class);
+
+    /**
+     * Style class of a scene root without CSS effects
+     */
+    public static final String NO_EFFECTS = "no-effects";
+
+    /**
+     * Time the work of a pulse should stay under, in nanoseconds
+     */
+    private static final long BUDGET = 8_000_000L;
+
+    /**
+     * Pulses in a window
+     */
+    private static final int WINDOW = 60;
+
+    /**
+     * Pulses over budget in a window that make the quality step down
+     */
+    private static final int SLOW_PULSES = 6;
+
+    /**
+     * Windows in a row with every pulse under half the budget that make the quality step back up
+     */
+    private static final int QUIET_WINDOWS = 5;
+
+    /**
+     * The scene governed
+     */
+    private final Scene scene;
+
+    /**
+     * Start of the current pulse, or 0 outside a pulse
+     */
+    private long pulseStart;
+
+    /**
+     * Pulses in the current window
+     */
+    private int pulses;
+
+    /**
+     * Pulses over budget in the current window
+     */
+    private int slow;
+
+    /**
+     * Longest pulse in the current window, in nanoseconds
+     */
+    private long longest;
+
+    /**
+     * Windows in a row with every pulse under half the budget
+     */
+    private int quiet;
+
+    /**
+     * Applies the quality to the scene when it changes; held here so the weak listener lives as long as the scene
+     */
+    private final ChangeListener<RenderQuality> qualityListener = (observable, oldQuality, quality) -> apply(quality);
+
+    /**
+     * Govern the quality from the pulses of a scene
+     * @param scene scene to time and apply the quality to
+     */
+    public QualityGovernor(Scene scene) {
+        this.scene = scene;
+        scene.addPreLayoutPulseListener(this::pulseStarted);
+        scene.addPostLayoutPulseListener(this::pulseEnded);
+        RenderQuality.qualityProperty().addListener(new WeakChangeListener<>(qualityListener));
+        scene.rootProperty().addListener((observable, oldRoot, newRoot) -> setEffects(RenderQuality.get()));
+        setEffects(RenderQuality.get());
+    }
+
+    /**
+     * Note the start of the work of a pulse
+     */
+    private void pulseStarted() {
+        pulseStart = System.nanoTime();
+    }
+
+    /**
+     * Note the end of the work of a pulse, and adjust the quality at the end of a window
+     */
+    private void pulseEnded() {
+        if (pulseStart == 0 || scene.getWindow() == null) {
+            return;
+        }
+        long duration = System.nanoTime() - pulseStart;
+        pulseStart = 0;
+        pulses++;
+        longest = Math.max(longest, duration);
+        if (duration > BUDGET) {
+            slow++;
+        }
+        if (pulses < WINDOW) {
+            return;
+        }
+
+        // Step down on too many slow pulses, and back up after enough quiet windows
+        RenderQuality quality = RenderQuality.get();
+        quiet = longest < BUDGET / 2 ? quiet + 1 : 0;
+        if (slow >= SLOW_PULSES && quality != RenderQuality.LOW) {
+            logger.info("{} of {} pulses over budget, lowering render quality to {}", slow, pulses, quality.lower());
+            RenderQuality.set(quality.lower());
+            quiet = 0;
+        }
+        else if (quiet >= QUIET_WINDOWS && quality != RenderQuality.HIGH) {
+            logger.info("Pulses well under budget, raising render quality to {}", quality.higher());
+            RenderQuality.set(quality.higher());
+            quiet = 0;
+        }
+        pulses = 0;
+        slow = 0;
+        longest = 0;
+    }
+
+    /**
+     * Apply a new quality to the scene
+     * @param quality new quality
+     */
+    private void apply(RenderQuality quality) {
+        setEffects(quality);
+        repaint(scene.getRoot());
+    }
+
+    /**
+     * Turn the CSS effects of the scene on or off
+     * @param quality quality to follow
+     */
+    private void setEffects(RenderQuality quality) {
+        var styleClass = scene.getRoot().getStyleClass();
+        styleClass.remove(NO_EFFECTS);
+        if (!quality.showsDecoration()) {
+            styleClass.add(NO_EFFECTS);
+        }
+    }
+
+    /**
+     * Repaint every board under a node
+     * @param node node to search
+     */
+    private static void repaint(Node node) {
+        if (node instanceof GameBlock block) {
+            block.paint();
+        }
+        else if (node instanceof CanvasBoard board) {
+            board.repaint();
+        }
+        else if (node instanceof PieceBoard board) {
+            board.repaint();
+        }
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                repaint(child);
+            }
+        }
+    }
+
+}
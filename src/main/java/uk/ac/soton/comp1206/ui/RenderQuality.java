@@ -0,0 +1,143 @@
+package uk.ac.soton.comp1206.ui;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The RenderQuality is how much visual detail the game draws. Medium drops the CSS drop shadows and the decorative
+ * animation of the menu; Low also drops the shading of the tiles and the fade of cleared blocks, which are what the
+ * boards paint most of during a line clear.
+ *
+ * The quality starts High and is stepped down and back up by the QualityGovernor of each scene as pulses go over or
+ * come back under budget. Starting with -Dtetrecs.quality=high, medium or low fixes it instead. Only to be changed on
+ * the JavaFX thread.
+ */
+public enum RenderQuality {
+
+    /**
+     * Everything drawn
+     */
+    HIGH,
+
+    /**
+     * No CSS effects or decorative animations
+     */
+    MEDIUM,
+
+    /**
+     * Flat tiles and no fades either
+     */
+    LOW;
+
+    /**
+     * The logger of the class for printing information to console, declared before the fixed quality it reports on
+     */
+    private static final Logger logger = LogManager.getLogger(RenderQuality.class);
+
+    /**
+     * The fixed quality given on the command line, or null to adjust it automatically
+     */
+    private static final RenderQuality FIXED = parse(System.getProperty("tetrecs.quality"));
+
+    /**
+     * The current quality
+     */
+    private static final ObjectProperty<RenderQuality> current =
+        new SimpleObjectProperty<>(FIXED == null ? HIGH : FIXED);
+
+    /**
+     * Get the current quality
+     * @return quality
+     */
+    public static RenderQuality get() {
+        return current.get();
+    }
+
+    /**
+     * Set the current quality, unless it was fixed on the command line
+     * @param quality new quality
+     */
+    public static void set(RenderQuality quality) {
+        if (FIXED == null) {
+            current.set(quality);
+        }
+    }
+
+    /**
+     * Get the property holding the current quality, to follow its changes
+     * @return quality property
+     */
+    public static ReadOnlyObjectProperty<RenderQuality> qualityProperty() {
+        return current;
+    }
+
+    /**
+     * Check whether the quality is adjusted automatically
+     * @return whether it was not fixed on the command line
+     */
+    public static boolean isAutomatic() {
+        return FIXED == null;
+    }
+
+    /**
+     * Get the next quality down
+     * @return lower quality, or this one if it is the lowest
+     */
+    public RenderQuality lower() {
+        return this == LOW ? LOW : values()[ordinal() + 1];
+    }
+
+    /**
+     * Get the next quality up
+     * @return higher quality, or this one if it is the highest
+     */
+    public RenderQuality higher() {
+        return this == HIGH ? HIGH : values()[ordinal() - 1];
+    }
+
+    /**
+     * Check whether tiles are shaded with a triangle
+     * @return whether tiles are shaded
+     */
+    public boolean shadesTiles() {
+        return this != LOW;
+    }
+
+    /**
+     * Check whether cleared blocks fade out
+     * @return whether blocks fade
+     */
+    public boolean fadesBlocks() {
+        return this != LOW;
+    }
+
+    /**
+     * Check whether decorative animations and CSS effects are shown
+     * @return whether decoration is shown
+     */
+    public boolean showsDecoration() {
+        return this == HIGH;
+    }
+
+    /**
+     * Read a quality given on the command line
+     * @param name name of the quality, in any case, or null
+     * @return quality, or null if none or an unknown one was given
+     */
+    private static RenderQuality parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            logger.warn("Unknown render quality {}, adjusting it automatically", name);
+            return null;
+        }
+    }
+
+}
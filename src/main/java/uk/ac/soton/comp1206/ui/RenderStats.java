@@ -0,0 +1,157 @@
+package uk.ac.soton.comp1206.ui;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * RenderStats counts the painting done by the boards, so the effect of changes to rendering can be seen. A paint
+ * request is a call that, before repaints were coalesced, would have painted straight away; a paint is a cell or
+ * canvas actually painted once per pulse by the RepaintScheduler.
+ *
+ * The counters are only touched on the JavaFX thread. Once a second of activity, the rates per frame are logged.
+ */
+public final class RenderStats {
+
+    /**
+     * The logger of the class for printing information to console
+     */
+    private static final Logger logger = LogManager.getLogger(RenderStats.class);
+
+    /**
+     * Paint requests since the start
+     */
+    private static long requests;
+
+    /**
+     * Paints since the start
+     */
+    private static long paints;
+
+    /**
+     * Frames that painted something, since the start
+     */
+    private static long frames;
+
+    /**
+     * Paint requests in the last frame that painted something
+     */
+    private static long lastFrameRequests;
+
+    /**
+     * Paints in the last frame that painted something
+     */
+    private static long lastFramePaints;
+
+    /**
+     * Requests counted at the start of the current frame
+     */
+    private static long frameStartRequests;
+
+    /**
+     * Paints counted at the start of the current frame
+     */
+    private static long frameStartPaints;
+
+    /**
+     * Time of the last log line, in nanoseconds
+     */
+    private static long lastLog;
+
+    /**
+     * Requests counted at the last log line
+     */
+    private static long loggedRequests;
+
+    /**
+     * Paints counted at the last log line
+     */
+    private static long loggedPaints;
+
+    /**
+     * Frames counted at the last log line
+     */
+    private static long loggedFrames;
+
+    /**
+     * Not to be created
+     */
+    private RenderStats() {
+    }
+
+    /**
+     * Count a paint request
+     */
+    public static void requested() {
+        requests++;
+    }
+
+    /**
+     * Count a paint
+     */
+    public static void painted() {
+        paints++;
+    }
+
+    /**
+     * Close a frame that painted something, and log the rates if a second has passed since the last log line
+     * @param now time of the frame, in nanoseconds
+     */
+    public static void frameDone(long now) {
+        frames++;
+        lastFrameRequests = requests - frameStartRequests;
+        lastFramePaints = paints - frameStartPaints;
+        frameStartRequests = requests;
+        frameStartPaints = paints;
+        if (now - lastLog >= 1_000_000_000L) {
+            long logFrames = frames - loggedFrames;
+            logger.debug("Repaints over {} frames: {} requested ({}/frame), {} painted ({}/frame)", logFrames,
+                requests - loggedRequests, String.format("%.1f", (requests - loggedRequests) / (double) logFrames),
+                paints - loggedPaints, String.format("%.1f", (paints - loggedPaints) / (double) logFrames));
+            lastLog = now;
+            loggedRequests = requests;
+            loggedPaints = paints;
+            loggedFrames = frames;
+        }
+    }
+
+    /**
+     * Get the paint requests since the start
+     * @return requests
+     */
+    public static long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Get the paints since the start
+     * @return paints
+     */
+    public static long getPaints() {
+        return paints;
+    }
+
+    /**
+     * Get the frames that painted something, since the start
+     * @return frames
+     */
+    public static long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Get the paint requests in the last frame that painted something
+     * @return requests
+     */
+    public static long getLastFrameRequests() {
+        return lastFrameRequests;
+    }
+
+    /**
+     * Get the paints in the last frame that painted something
+     * @return paints
+     */
+    public static long getLastFramePaints() {
+        return lastFramePaints;
+    }
+
+}
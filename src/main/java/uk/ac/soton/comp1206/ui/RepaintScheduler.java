@@ -0,0 +1,98 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+/**
+ * The RepaintScheduler coalesces canvas painting to once per JavaFX pulse. Components mark what changed and schedule a
+ * repaint here; every repaint scheduled for a scene runs once, just before the scene is laid out and rendered, after
+ * all animations of the pulse have run. A node that is not in a scene yet is painted straight away, as nothing would
+ * otherwise paint it.
+ *
+ * Components are expected to schedule themselves once until they are repainted, typically with a dirty flag, and to
+ * count every request and paint in RenderStats. Only to be used on the JavaFX thread.
+ */
+public final class RepaintScheduler {
+
+    /**
+     * Key of the scheduler in the properties of its scene
+     */
+    private static final Object KEY = RepaintScheduler.class;
+
+    /**
+     * Repaints waiting for the next pulse
+     */
+    private List<Runnable> pending = new ArrayList<>();
+
+    /**
+     * Repaints being run, swapped with the pending list so repaints can schedule more
+     */
+    private List<Runnable> running = new ArrayList<>();
+
+    /**
+     * Create a scheduler for a scene
+     * @param scene scene to repaint before each layout
+     */
+    private RepaintScheduler(Scene scene) {
+        scene.addPreLayoutPulseListener(this::flush);
+    }
+
+    /**
+     * Schedule a repaint of a node for the next pulse of its scene, or run it now if the node is not in a scene. A
+     * repaint scheduled from another thread is handed to the JavaFX thread first, so it is never lost.
+     * @param node node to repaint
+     * @param repaint paints the node
+     */
+    public static void schedule(Node node, Runnable repaint) {
+        Scene scene = node.getScene();
+        if (scene == null) {
+            repaint.run();
+            return;
+        }
+        if (!Platform.isFxApplicationThread()) {
+            UiQueue.runLater(() -> schedule(node, repaint));
+            return;
+        }
+        var scheduler = (RepaintScheduler) scene.getProperties().get(KEY);
+        if (scheduler == null) {
+            scheduler = new RepaintScheduler(scene);
+            scene.getProperties().put(KEY, scheduler);
+        }
+        if (scheduler.pending.isEmpty()) {
+            Platform.requestNextPulse();
+        }
+        scheduler.pending.add(repaint);
+    }
+
+    /**
+     * Run every repaint scheduled for a scene now, for example before taking a snapshot of it
+     * @param scene scene to repaint
+     */
+    public static void flush(Scene scene) {
+        var scheduler = (RepaintScheduler) scene.getProperties().get(KEY);
+        if (scheduler != null) {
+            scheduler.flush();
+        }
+    }
+
+    /**
+     * Run the scheduled repaints
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Runnable> repaints = pending;
+        pending = running;
+        running = repaints;
+        for (Runnable repaint : repaints) {
+            repaint.run();
+        }
+        repaints.clear();
+        RenderStats.frameDone(System.nanoTime());
+    }
+
+}
@@ -0,0 +1,76 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.application.Platform;
+
+/**
+ * The UiQueue runs work on the JavaFX thread like Platform.runLater, and counts it: how many tasks were queued, how
+ * many have run, and how long they took. Network listeners, game timers and background work all reach the user
+ * interface through here, so the debug overlay can tell their load apart from painting and layout.
+ */
+public final class UiQueue {
+
+    /**
+     * Tasks queued since the start, from any thread
+     */
+    private static final AtomicLong queued = new AtomicLong();
+
+    /**
+     * Tasks run since the start, only counted on the JavaFX thread
+     */
+    private static long run;
+
+    /**
+     * Time spent running tasks since the start, in nanoseconds, only counted on the JavaFX thread
+     */
+    private static long runTime;
+
+    /**
+     * Not to be created
+     */
+    private UiQueue() {
+    }
+
+    /**
+     * Run a task on the JavaFX thread at some time in the future, counting it
+     * @param task task to run
+     */
+    public static void runLater(Runnable task) {
+        queued.incrementAndGet();
+        Platform.runLater(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            }
+            finally {
+                run++;
+                runTime += System.nanoTime() - start;
+            }
+        });
+    }
+
+    /**
+     * Get the tasks queued since the start
+     * @return tasks queued
+     */
+    public static long getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Get the tasks run since the start. Only to be called on the JavaFX thread.
+     * @return tasks run
+     */
+    public static long getRun() {
+        return run;
+    }
+
+    /**
+     * Get the time spent running tasks since the start. Only to be called on the JavaFX thread.
+     * @return time in nanoseconds
+     */
+    public static long getRunTime() {
+        return runTime;
+    }
+
+}